@@ -1,5 +1,7 @@
 package com.throng.game.android;
 
+import android.app.ActivityManager;
+import android.content.Context;
 import android.os.Bundle;
 import android.view.WindowManager;
 import android.content.pm.ActivityInfo;
@@ -23,6 +25,14 @@ public class AndroidLauncher extends AndroidApplication {
 
         AndroidApplicationConfiguration configuration = new AndroidApplicationConfiguration();
         configuration.useImmersiveMode = true;
-        initialize(new ThrongGame(), configuration);
+        // GLES3 where the device has it, so the pet crowd draws instanced; libGDX drops to GLES2 otherwise
+        configuration.useGL30 = true;
+        ThrongGame game = new ThrongGame();
+        // Textures share RAM with everything else here; an eighth of it, so small devices trim screens earlier
+        ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memory = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memory);
+        game.textureBudgetBytes = Math.min(game.textureBudgetBytes, memory.totalMem / 8);
+        initialize(game, configuration);
     }
 }
\ No newline at end of file
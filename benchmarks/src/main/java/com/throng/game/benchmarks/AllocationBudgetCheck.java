@@ -0,0 +1,169 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.throng.game.entity.Pet;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Runs scripted scenarios through {@link HeadlessGameLoop} and fails when the bytes allocated per frame exceed the
+ * scenario's budget. The steady-state frame of the game screen should allocate nothing, so the budgets only leave
+ * room for what a scenario creates on purpose (a fruit per feed) and for JIT noise.
+ * <p>
+ * Usage: {@code ./gradlew benchmarks:checkAllocations}, also part of {@code benchmarks:check}.
+ */
+public class AllocationBudgetCheck {
+    private static final float DELTA = 1 / 60f;
+
+    private int warmupFrames = 3000;
+    private int frames = 1200;
+
+    private abstract static class Scenario {
+        final String name;
+        final double budgetBytesPerFrame;
+
+        Scenario(String name, double budgetBytesPerFrame) {
+            this.name = name;
+            this.budgetBytesPerFrame = budgetBytesPerFrame;
+        }
+
+        void setUp(HeadlessGameLoop loop) {
+        }
+
+        abstract void frame(HeadlessGameLoop loop, int frame);
+    }
+
+    private static final Scenario[] SCENARIOS = {
+            new Scenario("idle", 16) {
+                @Override
+                void setUp(HeadlessGameLoop loop) {
+                    loop.pet.suppressAutoBehavior = true;
+                }
+
+                @Override
+                void frame(HeadlessGameLoop loop, int frame) {
+                }
+            },
+            new Scenario("walking", 16) {
+                @Override
+                void frame(HeadlessGameLoop loop, int frame) {
+                    // Auto walks for five seconds, then WASD for five seconds
+                    if (frame % 600 < 300) {
+                        loop.move(0, 0);
+                        if (loop.pet.getState() != Pet.PetState.WALKING) {
+                            loop.pet.startRandomWalk(HeadlessGameLoop.WORLD_WIDTH, HeadlessGameLoop.WORLD_HEIGHT);
+                        }
+                    } else {
+                        float angle = frame * 0.02f;
+                        loop.move(MathUtils.cos(angle), MathUtils.sin(angle));
+                    }
+                }
+            },
+            new Scenario("dragging", 16) {
+                private float centerX, centerY;
+
+                @Override
+                void setUp(HeadlessGameLoop loop) {
+                    centerX = loop.pet.getPosition().x;
+                    centerY = HeadlessGameLoop.WORLD_HEIGHT - loop.pet.getPosition().y;
+                    loop.input.touchDown((int) centerX, (int) centerY, 0, 0);
+                }
+
+                @Override
+                void frame(HeadlessGameLoop loop, int frame) {
+                    float angle = frame * 0.05f;
+                    loop.input.touchDragged((int) (centerX + MathUtils.cos(angle) * 150),
+                            (int) (centerY + MathUtils.sin(angle) * 150), 0);
+                }
+            },
+            new Scenario("feeding", 64) {
+                @Override
+                void frame(HeadlessGameLoop loop, int frame) {
+                    // Ten feeds a second, walking through the drops so they get eaten
+                    if (frame % 6 == 0) {
+                        loop.feed();
+                    }
+                    if (loop.pet.getState() != Pet.PetState.WALKING && loop.world.getFruits().size > 0) {
+                        loop.pet.startRandomWalk(HeadlessGameLoop.WORLD_WIDTH, HeadlessGameLoop.WORLD_HEIGHT);
+                    }
+                }
+            },
+            new Scenario("timed-actions", 16) {
+                @Override
+                void frame(HeadlessGameLoop loop, int frame) {
+                    // Eat, play and sleep in turn, each cancelled a second later by a keypress
+                    int slot = frame % 60;
+                    loop.move(slot == 59 ? 1 : 0, 0);
+                    if (slot == 0) {
+                        switch ((frame / 60) % 3) {
+                            case 0:
+                                loop.pet.eat();
+                                break;
+                            case 1:
+                                loop.pet.play();
+                                break;
+                            default:
+                                loop.pet.sleep();
+                                break;
+                        }
+                    }
+                }
+            } };
+
+    public static void main(String[] args) {
+        AllocationBudgetCheck check = new AllocationBudgetCheck();
+        check.parse(args);
+        int failures = 0;
+        for (Scenario scenario : SCENARIOS) {
+            if (!check.run(scenario)) {
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.out.println(failures + " scenario(s) over their allocation budget");
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--frames":
+                    frames = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmupFrames = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private boolean run(Scenario scenario) {
+        HeadlessGameLoop loop = new HeadlessGameLoop();
+        scenario.setUp(loop);
+        int frame = 0;
+        for (; frame < warmupFrames; frame++) {
+            scenario.frame(loop, frame);
+            loop.frame(DELTA);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < frames; i++, frame++) {
+            scenario.frame(loop, frame);
+            loop.frame(DELTA);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        loop.dispose();
+
+        double perFrame = (double) allocated / frames;
+        boolean ok = perFrame <= scenario.budgetBytesPerFrame;
+        System.out.println(String.format(Locale.ROOT, "%-14s %10.1f B/frame  budget %6.0f  %s", scenario.name,
+                perFrame, scenario.budgetBytesPerFrame, ok ? "ok" : "OVER BUDGET"));
+        return ok;
+    }
+}
@@ -0,0 +1,47 @@
+package com.throng.game.benchmarks;
+
+import com.throng.game.animation.AnimationLoader;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.server.Headless;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load every pet animation with a given number of decode threads. Uploads are no-ops on the headless GL,
+ * so this is the decode and mask half, the part that scales with cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnimationLoadBenchmark {
+    @Param({ "1", "2", "4" })
+    public int decodeThreads;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+    }
+
+    @Benchmark
+    public AnimationManager load() {
+        AnimationLoader loader = new AnimationLoader(decodeThreads);
+        loader.finishLoading();
+        AnimationManager animations = loader.getAnimationManager();
+        animations.dispose();
+        return animations;
+    }
+}
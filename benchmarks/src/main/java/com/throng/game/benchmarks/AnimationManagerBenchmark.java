@@ -0,0 +1,53 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.server.Headless;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationManagerBenchmark {
+    private AnimationManager animationManager;
+    private Pet.PetState state = Pet.PetState.WALKING;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        animationManager = new AnimationManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        animationManager.dispose();
+    }
+
+    @Benchmark
+    public Animation<TextureRegion> getConstantKey() {
+        return animationManager.get("IDLE");
+    }
+
+    // The way Pet looks animations up, via the name of its current state
+    @Benchmark
+    public Animation<TextureRegion> getStateKey() {
+        return animationManager.get(state.toString());
+    }
+}
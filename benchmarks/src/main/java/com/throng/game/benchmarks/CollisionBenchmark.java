@@ -0,0 +1,61 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+import com.throng.game.server.Headless;
+import com.throng.game.world.GameWorld;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameWorld#checkFruitCollision}, with the fruits kept out of reach so every iteration tests all of them
+ * and none gets eaten.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({ "1", "16", "256" })
+    public int fruitCount;
+
+    private GameWorld world;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        world = new GameWorld();
+        world.addPet(new Pet(new Vector2(640, 360)));
+        for (int i = 0; i < fruitCount; i++) {
+            float angle = MathUtils.PI2 * i / fruitCount;
+            world.addFruit(new Fruit(new Vector2(640 + MathUtils.cos(angle) * 250, 360 + MathUtils.sin(angle) * 250)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.dispose();
+    }
+
+    @Benchmark
+    public int checkFruitCollision() {
+        world.checkFruitCollision();
+        return world.getFruits().size;
+    }
+}
@@ -0,0 +1,79 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.server.Headless;
+import com.throng.game.world.GameWorld;
+import com.throng.game.world.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulation step and its snapshot for a crowd spread over a world of 10 by 10 screens, with the view on one
+ * of them ({@code lod}) or without a view, where every pet is animated and updated every step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrowdLodBenchmark {
+    private static final float SCREEN_WIDTH = 1280f;
+    private static final float SCREEN_HEIGHT = 720f;
+
+    @Param({ "1000", "10000", "100000" })
+    public int petCount;
+
+    @Param({ "false", "true" })
+    public boolean lod;
+
+    private AnimationManager animationManager;
+    private GameWorld world;
+    private Simulation simulation;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        MathUtils.random.setSeed(42L);
+        animationManager = new AnimationManager();
+        world = new GameWorld();
+        float worldWidth = SCREEN_WIDTH * 10;
+        float worldHeight = SCREEN_HEIGHT * 10;
+        for (int i = 0; i < petCount; i++) {
+            world.addPet(new Pet(new Vector2(MathUtils.random(worldWidth), MathUtils.random(worldHeight)),
+                    animationManager));
+        }
+        simulation = new Simulation(world, new TextureRegion(), worldWidth, worldHeight);
+        if (lod)
+            simulation.setView(new Rectangle(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT), (int) SCREEN_WIDTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.dispose();
+        animationManager.dispose();
+    }
+
+    @Benchmark
+    public void step() {
+        simulation.update(Simulation.STEP);
+        simulation.acquireSnapshot();
+    }
+}
@@ -0,0 +1,57 @@
+package com.throng.game.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render thread cost of one game frame with the simulation stepped inline or running on its own thread. With a
+ * spare core the threaded frame only pays for drawing; on a single core both compete and it shows nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+// Frames with thousands of pets take milliseconds, microsecond throughput would round to zero
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLoopBenchmark {
+    private static final float DELTA = 1 / 60f;
+
+    @Param({ "100", "1000", "10000" })
+    public int petCount;
+
+    @Param({ "false", "true" })
+    public boolean simulationThread;
+
+    private HeadlessGameLoop loop;
+
+    @Setup
+    public void setUp() {
+        loop = new HeadlessGameLoop();
+        loop.addPets(petCount);
+        if (simulationThread)
+            loop.simulation.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        loop.dispose();
+    }
+
+    @Benchmark
+    public void frame() {
+        loop.frame(DELTA);
+    }
+}
@@ -0,0 +1,235 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.InputMultiplexer;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.badlogic.gdx.Gdx;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.DraggablePetActor;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetLayer;
+import com.throng.game.entity.PetSnapshot;
+import com.throng.game.render.CrowdRenderer;
+import com.throng.game.server.Headless;
+import com.throng.game.ui.PetStatsUI;
+import com.throng.game.ui.StatBarRenderer;
+import com.throng.game.world.EventBus;
+import com.throng.game.world.GameWorld;
+import com.throng.game.world.Simulation;
+import com.throng.game.world.WorldSnapshot;
+
+/**
+ * The per-frame work of {@code GameScreen.render} without a window: simulation, stat bars, the buttons, the
+ * draggable pet and drawing through a {@link SpriteBatch} on the no-op GL. Eating sounds are counted instead of
+ * played. Keyboard input is replaced by {@link #move}.
+ * Like the screen, the pets sit on a world stage under the button stage, and touches go through {@link #input}.
+ * The world is stepped inline through a {@link Simulation}; {@code simulation.start()} moves it to its own thread,
+ * after which {@link #pet} and {@link #world} belong to that thread.
+ */
+public class HeadlessGameLoop {
+    public static final float WORLD_WIDTH = Headless.WIDTH;
+    public static final float WORLD_HEIGHT = Headless.HEIGHT;
+
+    final SpriteBatch batch;
+    final Stage worldStage;
+    final Stage stage;
+    final InputMultiplexer input = new InputMultiplexer();
+    final GameWorld world = new GameWorld();
+    final Pet pet;
+    final Simulation simulation;
+    final PetStatsUI petStatsUI;
+    final StatBarRenderer statBars;
+    final DraggablePetActor draggablePet;
+    final PetLayer petLayer;
+    boolean drawStatBars = true;
+    int fruitsEaten;
+
+    private final Skin skin;
+    private final Texture backgroundTexture;
+    private final Texture fruitTexture;
+    private final TextureRegion fruitRegion;
+    private AnimationManager crowdAnimations;
+    private CrowdRenderer crowd;
+    private boolean controlling;
+    private final EventBus.Subscription worldEvents;
+    private final EventBus.Handler worldEventHandler = new EventBus.Handler() {
+        @Override
+        public void onEvent(int type, int pet, int detail, float x, float y) {
+            switch (type) {
+                case EventBus.ATE:
+                    fruitsEaten++;
+                    break;
+                case EventBus.STATE_CHANGED:
+                    if (pet == 0)
+                        petStatsUI.setBusy(detail == Pet.PetState.PLAYING.ordinal()
+                                || detail == Pet.PetState.SLEEPING.ordinal()
+                                || detail == Pet.PetState.EATING.ordinal());
+                    break;
+                default:
+                    break;
+            }
+        }
+    };
+
+    private static final float PET_CULL_MARGIN = 160f;
+    private final Rectangle viewBounds = new Rectangle();
+    private final Array<Fruit> visibleFruits = new Array<>();
+    private final Array<PetSnapshot> visiblePets = new Array<>();
+
+    public HeadlessGameLoop() {
+        this(WORLD_WIDTH, WORLD_HEIGHT);
+    }
+
+    /** With the world sized apart from the view, as a game window of another size would have it. */
+    public HeadlessGameLoop(float worldWidth, float worldHeight) {
+        Headless.start();
+        MathUtils.random.setSeed(42L);
+        batch = new SpriteBatch();
+        ScreenViewport viewport = new ScreenViewport();
+        viewport.update((int) WORLD_WIDTH, (int) WORLD_HEIGHT, true);
+        worldStage = new Stage(viewport, batch);
+        stage = new Stage(viewport, batch);
+        input.addProcessor(stage);
+        input.addProcessor(worldStage);
+        skin = new Skin(Gdx.files.internal("skin/uiskin.json"));
+        backgroundTexture = new Texture("background/Grass_Sample.png");
+        fruitTexture = new Texture("apple/apple_default.png");
+        fruitRegion = new TextureRegion(fruitTexture);
+
+        worldEvents = world.getEvents().subscribe();
+        pet = new Pet(new Vector2(worldWidth / 2f, worldHeight / 2f));
+        pet.recordHistory();
+        world.addPet(pet);
+        simulation = new Simulation(world, fruitRegion, worldWidth, worldHeight);
+        statBars = new StatBarRenderer(skin.getFont("default-font"));
+        petStatsUI = new PetStatsUI(stage, new PetStatsUI.PetActionListener() {
+            @Override
+            public void onFeed() {
+                feed();
+            }
+
+            @Override
+            public void onPlay() {
+                simulation.play(0);
+            }
+
+            @Override
+            public void onSleep() {
+                simulation.sleep(0);
+            }
+        });
+        draggablePet = new DraggablePetActor(simulation, 0);
+        petLayer = new PetLayer();
+        petLayer.setCullingArea(viewBounds);
+        petLayer.addActor(draggablePet);
+        worldStage.addActor(petLayer);
+    }
+
+    /** Same drop as {@code GameScreen}'s feed button, it lands in the next step. */
+    public void feed() {
+        simulation.feed(0);
+    }
+
+    /**
+     * Adds pets without actors, sharing one set of animations and drawn by a {@link CrowdRenderer}. Only
+     * before the simulation thread is started.
+     */
+    public void addPets(int count) {
+        if (crowdAnimations == null) {
+            crowdAnimations = new AnimationManager();
+            crowd = new CrowdRenderer(crowdAnimations);
+        }
+        for (int i = 0; i < count; i++) {
+            world.addPet(new Pet(new Vector2(MathUtils.random(WORLD_WIDTH), MathUtils.random(WORLD_HEIGHT)),
+                    crowdAnimations));
+        }
+    }
+
+    /** Moves the camera by the given amount, as a scrolling view over a bigger world would. */
+    public void pan(float dx, float dy) {
+        stage.getCamera().translate(dx, dy, 0);
+    }
+
+    /** Holds the WASD direction for the following frames, (0, 0) releases it. */
+    public void move(float dx, float dy) {
+        if (!controlling) {
+            simulation.setControlledPet(0);
+            controlling = true;
+        }
+        simulation.move(dx, dy);
+    }
+
+    public void frame(float delta) {
+        simulation.update(delta);
+        worldEvents.drain(worldEventHandler);
+        WorldSnapshot snapshot = simulation.acquireSnapshot();
+
+        OrthographicCamera camera = (OrthographicCamera) stage.getCamera();
+        stage.getViewport().apply();
+        camera.update();
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        viewBounds.set(camera.position.x - width / 2f, camera.position.y - height / 2f, width, height);
+        snapshot.cull(viewBounds, PET_CULL_MARGIN, visibleFruits, visiblePets);
+        simulation.setView(viewBounds, stage.getViewport().getScreenWidth());
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        float bgWidth = backgroundTexture.getWidth();
+        float bgHeight = backgroundTexture.getHeight();
+        for (float x = MathUtils.floor(viewBounds.x / bgWidth) * bgWidth; x < viewBounds.x + width; x += bgWidth) {
+            for (float y = MathUtils.floor(viewBounds.y / bgHeight) * bgHeight; y < viewBounds.y + height;
+                    y += bgHeight) {
+                batch.draw(backgroundTexture, x, y);
+            }
+        }
+        for (int i = 0; i < visibleFruits.size; i++) {
+            Fruit fruit = visibleFruits.get(i);
+            float size = fruit.getSize();
+            batch.draw(fruit.getFrame(), fruit.getPosition().x - size / 2, fruit.getPosition().y - size / 2, size,
+                    size);
+        }
+        if (crowd != null) {
+            batch.end();
+            crowd.render(batch, visiblePets, snapshot.getPets().get(0));
+            batch.begin();
+        }
+        if (drawStatBars) {
+            statBars.render(batch, visiblePets);
+        }
+        batch.end();
+
+        worldStage.act(delta);
+        worldStage.draw();
+        stage.act(delta);
+        stage.draw();
+    }
+
+    public void dispose() {
+        stage.dispose();
+        worldStage.dispose();
+        simulation.dispose();
+        worldEvents.close();
+        world.dispose();
+        petStatsUI.dispose();
+        statBars.dispose();
+        if (crowdAnimations != null) {
+            crowd.dispose();
+            crowdAnimations.dispose();
+        }
+        skin.dispose();
+        backgroundTexture.dispose();
+        fruitTexture.dispose();
+        batch.dispose();
+    }
+}
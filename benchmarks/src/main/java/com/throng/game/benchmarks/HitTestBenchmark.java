@@ -0,0 +1,95 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.DraggablePetActor;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetLayer;
+import com.throng.game.server.Headless;
+import com.throng.game.world.GameWorld;
+import com.throng.game.world.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Stage hit test over a crowd of draggable pets, with the pets in a plain {@link Group} or in a {@link PetLayer}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitTestBenchmark {
+    @Param({ "10", "100", "1000" })
+    public int petCount;
+
+    @Param({ "group", "layer" })
+    public String container;
+
+    private static final int POINTS = 1024;
+
+    private SpriteBatch batch;
+    private Stage stage;
+    private AnimationManager animationManager;
+    private GameWorld world;
+    private final float[] pointsX = new float[POINTS];
+    private final float[] pointsY = new float[POINTS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        MathUtils.random.setSeed(42L);
+        batch = new SpriteBatch();
+        stage = new Stage(new ScreenViewport(), batch);
+        animationManager = new AnimationManager();
+        Group pets = "layer".equals(container) ? new PetLayer() : new Group();
+        // Pets crowd the left half, so about half the points are misses over empty grass, the linear worst case
+        world = new GameWorld();
+        for (int i = 0; i < petCount; i++) {
+            world.addPet(new Pet(new Vector2(MathUtils.random(640f), MathUtils.random(720f)), animationManager));
+        }
+        Simulation simulation = new Simulation(world, null, 1280f, 720f);
+        for (int i = 0; i < petCount; i++) {
+            pets.addActor(new DraggablePetActor(simulation, i));
+        }
+        stage.addActor(pets);
+        // Builds the layer's index from the actors' positions
+        stage.act(0);
+        for (int i = 0; i < POINTS; i++) {
+            pointsX[i] = MathUtils.random(1280f);
+            pointsY[i] = MathUtils.random(720f);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        stage.dispose();
+        world.dispose();
+        animationManager.dispose();
+        batch.dispose();
+    }
+
+    @Benchmark
+    public Actor hit() {
+        next = (next + 1) & (POINTS - 1);
+        return stage.hit(pointsX[next], pointsY[next], true);
+    }
+}
@@ -0,0 +1,60 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.entity.Pet;
+import com.throng.game.server.Headless;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetBenchmark {
+    private static final float DELTA = 1 / 60f;
+    private static final float WORLD_WIDTH = 1280f;
+    private static final float WORLD_HEIGHT = 720f;
+
+    private Pet pet;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        pet = new Pet(new Vector2(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pet.dispose();
+    }
+
+    @Benchmark
+    public void update() {
+        pet.update(DELTA, WORLD_WIDTH, WORLD_HEIGHT);
+    }
+
+    @Benchmark
+    public TextureRegion getCurrentFrame() {
+        return pet.getCurrentFrame();
+    }
+
+    @Benchmark
+    public Rectangle getBounds() {
+        return pet.getBounds();
+    }
+}
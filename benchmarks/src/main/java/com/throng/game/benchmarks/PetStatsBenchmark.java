@@ -0,0 +1,97 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetStats;
+import com.throng.game.server.Headless;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One step of stat decay and timed-action interpolation for a crowd in which a quarter of the pets, in random order,
+ * are playing, sleeping or eating: per pet through {@link Pet#stepStats}, each pet with its own stats, against
+ * {@link PetStats#step} over the crowd's arrays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetStatsBenchmark {
+    private static final float DELTA = 1f / 60f;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int petCount;
+
+    private AnimationManager animationManager;
+    private Pet[] pets;
+    private PetStats crowd;
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        MathUtils.random.setSeed(42L);
+        animationManager = new AnimationManager();
+        pets = new Pet[petCount];
+        crowd = new PetStats(petCount);
+        Pet[] crowdPets = new Pet[petCount];
+        for (int i = 0; i < petCount; i++) {
+            pets[i] = new Pet(new Vector2(), animationManager);
+            crowdPets[i] = new Pet(new Vector2(), animationManager);
+            crowdPets[i].moveStats(crowd);
+            startAction(pets[i], crowdPets[i], MathUtils.random(11));
+        }
+    }
+
+    private static void startAction(Pet pet, Pet crowdPet, int action) {
+        switch (action) {
+            case 0:
+                pet.play();
+                crowdPet.play();
+                break;
+            case 1:
+                pet.sleep();
+                crowdPet.sleep();
+                break;
+            case 2:
+                pet.eat();
+                crowdPet.eat();
+                break;
+            default:
+                break;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        animationManager.dispose();
+    }
+
+    @Benchmark
+    public Pet[] perPet() {
+        for (Pet pet : pets)
+            pet.stepStats(DELTA);
+        return pets;
+    }
+
+    @Benchmark
+    public PetStats kernel() {
+        crowd.step(DELTA);
+        return crowd;
+    }
+}
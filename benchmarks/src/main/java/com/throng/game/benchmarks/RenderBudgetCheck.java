@@ -0,0 +1,105 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.throng.game.server.Headless;
+
+import java.util.Locale;
+
+/**
+ * Renders the game screen scenes through {@link HeadlessGameLoop} with a {@link GLProfiler} attached and fails when
+ * a frame needs more batch flushes, GL draw calls or texture binds than the scene's budget. Keeps batching gains
+ * (shared textures, one region per fruit) from silently regressing when actors or textures are added.
+ * <p>
+ * Usage: {@code ./gradlew benchmarks:checkRenderBudget}, also part of {@code benchmarks:check}.
+ */
+public class RenderBudgetCheck {
+    private static final float DELTA = 1 / 60f;
+    private static final int WARMUP_FRAMES = 10;
+
+    private static class Scene {
+        final String name;
+        final int fruits;
+        final int extraPets;
+        final boolean stage;
+        float panX;
+        final int maxRenderCalls;
+        final int maxDrawCalls;
+        final int maxTextureBindings;
+
+        Scene(String name, int fruits, int extraPets, boolean stage, int maxRenderCalls, int maxDrawCalls,
+                int maxTextureBindings) {
+            this.name = name;
+            this.fruits = fruits;
+            this.extraPets = extraPets;
+            this.stage = stage;
+            this.maxRenderCalls = maxRenderCalls;
+            this.maxDrawCalls = maxDrawCalls;
+            this.maxTextureBindings = maxTextureBindings;
+        }
+
+        Scene pannedBy(float x) {
+            panX = x;
+            return this;
+        }
+    }
+
+    private static final Scene[] SCENES = {
+            new Scene("background", 0, 0, false, 1, 1, 1),
+            new Scene("fruits x100", 100, 0, false, 2, 2, 2),
+            new Scene("pet and stats", 0, 0, true, 5, 5, 5),
+            new Scene("full x100", 100, 0, true, 6, 6, 6),
+            // Stat bars for a crowd must cost the same as for one pet, and the crowd itself one more draw
+            new Scene("bars x100 pets", 100, 100, true, 7, 7, 7),
+            // Camera scrolled past every pet and fruit: only the background and the HUD are left
+            new Scene("scrolled away", 100, 100, true, 2, 2, 2).pannedBy(3000f) };
+
+    public static void main(String[] args) {
+        Headless.start();
+        GLProfiler profiler = new GLProfiler(Gdx.graphics);
+        profiler.enable();
+        int failures = 0;
+        for (Scene scene : SCENES) {
+            if (!run(scene, profiler)) {
+                failures++;
+            }
+        }
+        profiler.disable();
+        if (failures > 0) {
+            System.out.println(failures + " scene(s) over their render budget");
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    private static boolean run(Scene scene, GLProfiler profiler) {
+        HeadlessGameLoop loop = new HeadlessGameLoop();
+        loop.pet.suppressAutoBehavior = true;
+        loop.stage.getRoot().setVisible(scene.stage);
+        loop.worldStage.getRoot().setVisible(scene.stage);
+        loop.drawStatBars = scene.stage;
+        loop.addPets(scene.extraPets);
+        loop.pan(scene.panX, 0);
+        for (int i = 0; i < scene.fruits; i++) {
+            loop.feed();
+        }
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            loop.frame(DELTA);
+        }
+
+        int totalBefore = loop.batch.totalRenderCalls;
+        profiler.reset();
+        loop.frame(DELTA);
+        int renderCalls = loop.batch.totalRenderCalls - totalBefore;
+        int drawCalls = profiler.getDrawCalls();
+        int textureBindings = profiler.getTextureBindings();
+        loop.dispose();
+
+        boolean ok = renderCalls <= scene.maxRenderCalls && drawCalls <= scene.maxDrawCalls
+                && textureBindings <= scene.maxTextureBindings;
+        System.out.println(String.format(Locale.ROOT,
+                "%-14s renderCalls %3d/%-3d drawCalls %3d/%-3d textureBindings %3d/%-3d %s", scene.name, renderCalls,
+                scene.maxRenderCalls, drawCalls, scene.maxDrawCalls, textureBindings, scene.maxTextureBindings,
+                ok ? "ok" : "OVER BUDGET"));
+        return ok;
+    }
+}
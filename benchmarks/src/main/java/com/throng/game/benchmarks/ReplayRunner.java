@@ -0,0 +1,157 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.throng.game.server.Headless;
+import com.throng.game.world.InputPlayer;
+import com.throng.game.world.InputRecording;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Replays a recorded game session through {@link HeadlessGameLoop} and prints one JSON line per run with frame
+ * latency percentiles and bytes allocated per frame. Since the session replays step for step, the same recording
+ * is the same workload before and after a change. Fails when the world at the end differs from the recorded one,
+ * which means the replay diverged and the numbers do not describe the recorded session.
+ * <p>
+ * Record a session with {@code ./gradlew lwjgl3:run -Pthrong.recordInput=/tmp/session.rec}, or headless with
+ * {@code --script}, which plays a fixed mix of WASD, drags and button presses.
+ * <p>
+ * Usage: {@code ./gradlew benchmarks:replay --args="--recording /tmp/session.rec --runs 3"}<br>
+ * {@code ./gradlew benchmarks:replay --args="--script /tmp/session.rec --seconds 120"}
+ */
+public class ReplayRunner {
+    private String recordingPath;
+    private String scriptPath;
+    private int runs = 3;
+    private int seconds = 120;
+
+    public static void main(String[] args) {
+        ReplayRunner runner = new ReplayRunner();
+        runner.parse(args);
+        Headless.start();
+        if (runner.scriptPath != null)
+            runner.script();
+        if (runner.recordingPath == null)
+            System.exit(0);
+
+        InputRecording recording = InputRecording.load(Gdx.files.absolute(runner.recordingPath));
+        boolean diverged = false;
+        for (int run = 0; run < runner.runs; run++) {
+            diverged |= !runner.replay(recording, run);
+        }
+        System.exit(diverged ? 1 : 0);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--recording":
+                    recordingPath = value;
+                    break;
+                case "--script":
+                    scriptPath = value;
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(value);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (recordingPath == null && scriptPath == null)
+            throw new IllegalArgumentException("Needs --recording or --script");
+    }
+
+    // Records a session through the same input paths the game screen has, at a steady 60 frames a second
+    private void script() {
+        HeadlessGameLoop loop = new HeadlessGameLoop();
+        InputRecording recording = new InputRecording(HeadlessGameLoop.WORLD_WIDTH, HeadlessGameLoop.WORLD_HEIGHT);
+        loop.simulation.record(recording);
+        float delta = 1 / 60f;
+        for (int frame = 0; frame < seconds * 60; frame++) {
+            int second = frame / 60;
+            int inSecond = frame % 60;
+            switch (second % 6) {
+                case 0:
+                    // WASD in a circle
+                    loop.move(MathUtils.cosDeg(frame * 3) * 0.7f, MathUtils.sinDeg(frame * 3) * 0.7f);
+                    break;
+                case 1:
+                    loop.move(0, 0);
+                    if (inSecond % 15 == 0)
+                        loop.feed();
+                    break;
+                case 2:
+                    // Grab the pet where it is and pull it along
+                    float x = loop.pet.getPosition().x;
+                    float y = HeadlessGameLoop.WORLD_HEIGHT - loop.pet.getPosition().y;
+                    if (inSecond == 0)
+                        loop.input.touchDown((int) x, (int) y, 0, 0);
+                    else if (inSecond == 59)
+                        loop.input.touchUp((int) x, (int) y, 0, 0);
+                    else
+                        loop.input.touchDragged((int) (x + 3), (int) (y + 2), 0);
+                    break;
+                case 3:
+                    if (inSecond == 0)
+                        loop.simulation.play(0);
+                    break;
+                case 4:
+                    if (inSecond == 0)
+                        loop.simulation.sleep(0);
+                    break;
+                default:
+                    // Left alone, the pet blinks and wanders on its own
+                    break;
+            }
+            loop.frame(delta);
+        }
+        recording.finish(loop.world);
+        recording.save(Gdx.files.absolute(scriptPath));
+        loop.dispose();
+        System.out.println("Recorded " + recording.getSteps() + " steps and " + recording.getCommandCount()
+                + " commands to " + scriptPath);
+    }
+
+    private boolean replay(InputRecording recording, int run) {
+        HeadlessGameLoop loop = new HeadlessGameLoop(recording.getWorldWidth(), recording.getWorldHeight());
+        InputPlayer player = new InputPlayer(recording, loop.simulation);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] frameNanos = new long[recording.getSteps()];
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int frame = 0; player.hasNext(); frame++) {
+            long frameStart = System.nanoTime();
+            loop.frame(player.next());
+            frameNanos[frame] = System.nanoTime() - frameStart;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        boolean matches = InputRecording.checksum(loop.world) == recording.getChecksum();
+        loop.dispose();
+
+        int frames = frameNanos.length;
+        Arrays.sort(frameNanos);
+        System.out.println(String.format(Locale.ROOT,
+                "{\"run\":%d,\"steps\":%d,\"commands\":%d,\"framesPerSecond\":%.1f,\"p50Micros\":%.2f,"
+                        + "\"p99Micros\":%.2f,\"maxMicros\":%.2f,\"allocatedBytesPerFrame\":%.1f,\"matches\":%b}",
+                run, frames, recording.getCommandCount(), frames / (elapsed / 1e9),
+                percentile(frameNanos, 0.50) / 1e3, percentile(frameNanos, 0.99) / 1e3,
+                frames > 0 ? frameNanos[frames - 1] / 1e3 : 0, frames > 0 ? (double) allocated / frames : 0,
+                matches));
+        return matches;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length > 0 ? sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] : 0;
+    }
+}
@@ -0,0 +1,190 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.net.NetworkClient;
+import com.throng.game.net.Protocol;
+import com.throng.game.net.QuantizedWorld;
+import com.throng.game.server.Headless;
+import com.throng.game.server.WorldServer;
+import com.throng.game.world.GameWorld;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Runs a {@link WorldServer} and a few {@link NetworkClient}s over loopback on one thread, with every client
+ * dragging, feeding, playing with and putting pets to sleep at random. Prints one JSON line per crowd size with
+ * server tick latency, the size of a full snapshot against the deltas actually sent, and bandwidth per pet per
+ * client. Every snapshot a client decodes is compared with what the server captured for that tick, and the run
+ * fails if one differs, if a client had to refuse a command or if commands are still unacked at the end.
+ * <p>
+ * Usage: {@code ./gradlew benchmarks:serverBench --args="--pets 10,100,1000 --clients 4 --ticks 3600 --loss 0.05"}
+ */
+public class ServerBenchmark {
+    private int[] petCounts = { 10, 100, 1000 };
+    private int clientCount = 4;
+    private int ticks = 3600;
+    private int warmupTicks = 600;
+    private float packetLoss;
+    private long seed = 42L;
+    private float worldWidth = 1280f;
+    private float worldHeight = 720f;
+    // Refused by a client with too many unacked commands, per run
+    private int droppedCommands;
+
+    public static void main(String[] args) throws IOException {
+        ServerBenchmark benchmark = new ServerBenchmark();
+        benchmark.parse(args);
+        Headless.start();
+        AnimationManager animationManager = new AnimationManager();
+        boolean passed = true;
+        for (int petCount : benchmark.petCounts) {
+            passed &= benchmark.run(petCount, animationManager);
+        }
+        animationManager.dispose();
+        System.exit(passed ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--pets":
+                    String[] counts = value.split(",");
+                    petCounts = new int[counts.length];
+                    for (int c = 0; c < counts.length; c++) {
+                        petCounts[c] = Integer.parseInt(counts[c].trim());
+                    }
+                    break;
+                case "--clients":
+                    clientCount = Integer.parseInt(value);
+                    break;
+                case "--ticks":
+                    ticks = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmupTicks = Integer.parseInt(value);
+                    break;
+                case "--loss":
+                    packetLoss = Float.parseFloat(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private boolean run(int petCount, AnimationManager animationManager) throws IOException {
+        MathUtils.random.setSeed(seed);
+        droppedCommands = 0;
+        GameWorld world = new GameWorld();
+        for (int i = 0; i < petCount; i++) {
+            world.addPet(new Pet(new Vector2(MathUtils.random(worldWidth), MathUtils.random(worldHeight)),
+                    animationManager));
+        }
+        WorldServer server = new WorldServer(world, worldWidth, worldHeight, 0);
+        NetworkClient[] clients = new NetworkClient[clientCount];
+        for (int c = 0; c < clientCount; c++) {
+            clients[c] = new NetworkClient("127.0.0.1", server.getPort());
+            clients[c].setPacketLoss(packetLoss);
+        }
+
+        for (int i = 0; i < warmupTicks; i++) {
+            step(server, clients, petCount);
+        }
+
+        long bytesBefore = server.getBytesSent();
+        long snapshotsBefore = server.getSnapshotsSent();
+        long[] tickNanos = new long[ticks];
+        int checked = 0;
+        int mismatches = 0;
+        for (int i = 0; i < ticks; i++) {
+            tickNanos[i] = step(server, clients, petCount);
+            for (NetworkClient client : clients) {
+                QuantizedWorld received = client.getNewestSnapshot();
+                QuantizedWorld sent = received != null ? server.getSnapshot(received.getTick()) : null;
+                if (sent == null)
+                    continue;
+                checked++;
+                if (!received.sameState(sent))
+                    mismatches++;
+            }
+        }
+        long bytes = server.getBytesSent() - bytesBefore;
+        long snapshots = server.getSnapshotsSent() - snapshotsBefore;
+
+        // Let every client hear about its last commands before counting what is still unacked
+        for (int i = 0; i < Protocol.TICKS_PER_SNAPSHOT * 10; i++) {
+            server.tick();
+            for (NetworkClient client : clients) {
+                client.setPacketLoss(0);
+                client.update(1f / Protocol.TICK_RATE);
+            }
+        }
+        int unacked = 0;
+        for (NetworkClient client : clients) {
+            unacked += client.getPendingCommands();
+            client.close();
+        }
+        QuantizedWorld last = server.getSnapshot(server.getTick() - server.getTick() % Protocol.TICKS_PER_SNAPSHOT);
+        ByteBuffer full = ByteBuffer.allocate(Protocol.MAX_SEND);
+        int fullBytes = 0;
+        boolean done = false;
+        for (int part = 0; !done; part++) {
+            full.clear();
+            done = last.writePart(full, null, part);
+            fullBytes += full.position();
+        }
+        server.close();
+        world.dispose();
+
+        Arrays.sort(tickNanos);
+        double seconds = ticks / (double) Protocol.TICK_RATE;
+        System.out.println(String.format(Locale.ROOT,
+                "{\"pets\":%d,\"clients\":%d,\"ticks\":%d,\"packetLoss\":%.2f,\"p50TickMicros\":%.2f,"
+                        + "\"p99TickMicros\":%.2f,\"fullSnapshotBytes\":%d,\"bytesPerSnapshot\":%.1f,"
+                        + "\"bytesPerPetPerSecond\":%.2f,\"checkedSnapshots\":%d,\"mismatches\":%d,"
+                        + "\"unackedCommands\":%d,\"droppedCommands\":%d}",
+                petCount, clientCount, ticks, packetLoss, percentile(tickNanos, 0.50) / 1e3,
+                percentile(tickNanos, 0.99) / 1e3, fullBytes, snapshots > 0 ? (double) bytes / snapshots : 0,
+                bytes / (double) clientCount / seconds / petCount, checked, mismatches, unacked,
+                droppedCommands));
+        return mismatches == 0 && unacked == 0 && droppedCommands == 0 && checked > 0;
+    }
+
+    // One server tick, timed, then one frame on each client with a few random commands
+    private long step(WorldServer server, NetworkClient[] clients, int petCount) throws IOException {
+        long start = System.nanoTime();
+        server.tick();
+        long elapsed = System.nanoTime() - start;
+        for (NetworkClient client : clients) {
+            float roll = MathUtils.random();
+            int pet = MathUtils.random(petCount - 1);
+            boolean queued = true;
+            if (roll < 0.05f)
+                queued = client.drag(pet, MathUtils.random(worldWidth), MathUtils.random(worldHeight));
+            else if (roll < 0.06f)
+                queued = client.feed(pet);
+            else if (roll < 0.07f)
+                queued = client.play(pet);
+            else if (roll < 0.08f)
+                queued = client.sleep(pet);
+            if (!queued)
+                droppedCommands++;
+            client.update(1f / Protocol.TICK_RATE);
+        }
+        return elapsed;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
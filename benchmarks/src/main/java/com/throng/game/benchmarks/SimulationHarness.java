@@ -0,0 +1,153 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+import com.throng.game.server.Headless;
+import com.throng.game.world.EventBus;
+import com.throng.game.world.GameWorld;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Drives a {@link GameWorld} with N pets and M fruits headless, with fixed deltas and a fixed seed, and prints one
+ * JSON line per crowd size with ticks per second, tick latency percentiles and bytes allocated per tick.
+ * Every eaten fruit is replaced at a random spot after the tick, so the fruit count stays at M for the whole run.
+ * <p>
+ * Usage: {@code ./gradlew benchmarks:simulate --args="--pets 1,100,1000 --fruits 50 --ticks 5000"}
+ */
+public class SimulationHarness {
+    private int[] petCounts = { 1, 10, 100, 1000 };
+    private int fruitCount = 50;
+    private int ticks = 5000;
+    private int warmupTicks = 1000;
+    private long seed = 42L;
+    private float delta = 1 / 60f;
+    private float worldWidth = 1280f;
+    private float worldHeight = 720f;
+
+    public static void main(String[] args) {
+        SimulationHarness harness = new SimulationHarness();
+        harness.parse(args);
+        Headless.start();
+        AnimationManager animationManager = new AnimationManager();
+        Texture fruitTexture = new Texture("apple/apple_default.png");
+        TextureRegion fruitRegion = new TextureRegion(fruitTexture);
+        for (int petCount : harness.petCounts) {
+            System.out.println(harness.run(petCount, animationManager, fruitRegion));
+        }
+        fruitTexture.dispose();
+        animationManager.dispose();
+        System.exit(0);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--pets":
+                    String[] counts = value.split(",");
+                    petCounts = new int[counts.length];
+                    for (int c = 0; c < counts.length; c++) {
+                        petCounts[c] = Integer.parseInt(counts[c].trim());
+                    }
+                    break;
+                case "--fruits":
+                    fruitCount = Integer.parseInt(value);
+                    break;
+                case "--ticks":
+                    ticks = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmupTicks = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--delta":
+                    delta = Float.parseFloat(value);
+                    break;
+                case "--width":
+                    worldWidth = Float.parseFloat(value);
+                    break;
+                case "--height":
+                    worldHeight = Float.parseFloat(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    }
+
+    private String run(int petCount, AnimationManager animationManager, final TextureRegion fruitRegion) {
+        MathUtils.random.setSeed(seed);
+        final GameWorld world = new GameWorld();
+        for (int i = 0; i < petCount; i++) {
+            world.addPet(new Pet(randomPosition(), animationManager));
+        }
+        for (int i = 0; i < fruitCount; i++) {
+            world.addFruit(new Fruit(randomPosition(), fruitRegion));
+        }
+        final int[] eaten = new int[1];
+        // Read every tick, as the game screen reads its sounds every frame
+        EventBus.Subscription events = world.getEvents().subscribe();
+        EventBus.Handler counter = new EventBus.Handler() {
+            @Override
+            public void onEvent(int type, int pet, int detail, float x, float y) {
+                if (type == EventBus.ATE)
+                    eaten[0]++;
+            }
+        };
+
+        for (int i = 0; i < warmupTicks; i++) {
+            tick(world, fruitRegion, events, counter);
+        }
+        eaten[0] = 0;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] tickNanos = new long[ticks];
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            long tickStart = System.nanoTime();
+            tick(world, fruitRegion, events, counter);
+            tickNanos[i] = System.nanoTime() - tickStart;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        world.dispose();
+
+        Arrays.sort(tickNanos);
+        return String.format(java.util.Locale.ROOT,
+                "{\"pets\":%d,\"fruits\":%d,\"fruitsEaten\":%d,\"ticks\":%d,\"seed\":%d,\"ticksPerSecond\":%.1f,"
+                        + "\"p50Micros\":%.2f,\"p99Micros\":%.2f,\"maxMicros\":%.2f,\"allocatedBytesPerTick\":%.1f}",
+                petCount, fruitCount, eaten[0], ticks, seed, ticks / (elapsed / 1e9),
+                percentile(tickNanos, 0.50) / 1e3, percentile(tickNanos, 0.99) / 1e3,
+                tickNanos[ticks - 1] / 1e3, (double) allocated / ticks);
+    }
+
+    private void tick(GameWorld world, TextureRegion fruitRegion, EventBus.Subscription events,
+            EventBus.Handler handler) {
+        world.update(delta, worldWidth, worldHeight);
+        events.drain(handler);
+        for (int i = world.getFruits().size; i < fruitCount; i++) {
+            world.addFruit(new Fruit(randomPosition(), fruitRegion));
+        }
+    }
+
+    private Vector2 randomPosition() {
+        return new Vector2(MathUtils.random(worldWidth), MathUtils.random(worldHeight));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+}
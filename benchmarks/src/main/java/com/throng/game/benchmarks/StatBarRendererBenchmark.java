@@ -0,0 +1,77 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetSnapshot;
+import com.throng.game.server.Headless;
+import com.throng.game.ui.StatBarRenderer;
+import com.badlogic.gdx.utils.Array;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatBarRendererBenchmark {
+    @Param({ "1", "100", "1000" })
+    public int petCount;
+
+    private SpriteBatch batch;
+    private Skin skin;
+    private AnimationManager animationManager;
+    private StatBarRenderer statBars;
+    private final Array<PetSnapshot> pets = new Array<>();
+
+    @Setup
+    public void setUp() {
+        Headless.start();
+        MathUtils.random.setSeed(42L);
+        batch = new SpriteBatch();
+        skin = new Skin(Gdx.files.internal("skin/uiskin.json"));
+        statBars = new StatBarRenderer(skin.getFont("default-font"));
+        animationManager = new AnimationManager();
+        for (int i = 0; i < petCount; i++) {
+            Pet pet = new Pet(new Vector2(MathUtils.random(1280f), MathUtils.random(720f)), animationManager);
+            // Spread the stats over all three bar colours
+            pet.update(MathUtils.random(100f), 1280f, 720f);
+            PetSnapshot snapshot = new PetSnapshot();
+            snapshot.set(pet);
+            pets.add(snapshot);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        animationManager.dispose();
+        statBars.dispose();
+        skin.dispose();
+        batch.dispose();
+    }
+
+    @Benchmark
+    public void render() {
+        batch.begin();
+        statBars.render(batch, pets);
+        batch.end();
+    }
+}
@@ -0,0 +1,63 @@
+package com.throng.game.benchmarks;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.throng.game.entity.StatHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording a one-second sample into a {@link StatHistory} that has been running for a week, so every ring is full
+ * and samples roll up, and reading the last {@code seconds} of one stat back for a chart.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatHistoryBenchmark {
+    private static final int WEEK = 7 * 24 * 60 * 60;
+
+    // Ten minutes, six hours and a week, one per level
+    @Param({ "600", "21600", "604800" })
+    public int seconds;
+
+    private StatHistory history;
+    private final float[] min = new float[1024], mean = new float[1024], max = new float[1024];
+    private int level;
+    private int buckets;
+    private float value;
+
+    @Setup
+    public void setUp() {
+        MathUtils.random.setSeed(42L);
+        history = new StatHistory();
+        for (int i = 0; i < WEEK; i++)
+            history.record(1f, MathUtils.random(100f), MathUtils.random(100f), MathUtils.random(100f));
+        level = history.levelFor(seconds);
+        buckets = (int) Math.ceil(seconds / history.getBucketSeconds(level));
+    }
+
+    @Benchmark
+    public StatHistory record() {
+        value = value >= 100f ? 0f : value + 1f;
+        history.record(1f, value, 100f - value, value);
+        return history;
+    }
+
+    @Benchmark
+    public int read() {
+        return history.read(level, StatHistory.HAPPINESS, buckets, min, mean, max);
+    }
+}
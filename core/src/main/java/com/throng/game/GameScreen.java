@@ -7,165 +7,221 @@ import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.InputAdapter;
-import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
-import com.badlogic.gdx.scenes.scene2d.ui.ImageButton;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
-import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
+import com.throng.game.animation.AnimationManager;
 import com.throng.game.audio.AudioManager;
+import com.throng.game.debug.PerfOverlay;
 import com.throng.game.entity.DraggablePetActor;
 import com.throng.game.entity.Fruit;
 import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetLayer;
+import com.throng.game.entity.PetSnapshot;
+import com.throng.game.render.CrowdRenderer;
+import com.throng.game.render.TextureRegistry;
 import com.throng.game.ui.PetStatsUI;
-import com.badlogic.gdx.utils.Array;
+import com.throng.game.ui.SoundToggleButton;
+import com.throng.game.ui.StatBarRenderer;
+import com.throng.game.world.EventBus;
+import com.throng.game.world.GameWorld;
+import com.throng.game.world.InputRecording;
+import com.throng.game.world.Simulation;
 
 public class GameScreen implements Screen {
+    private static final String SKIN_PATH = "skin/uiskin.json";
+    private static final String[] TEXTURE_PATHS = {
+            "background/Grass_Sample.png", "apple/apple_default.png",
+            "buttons/Square/SoundOn/Default.png", "buttons/Square/SoundOn/Hover.png",
+            "buttons/Square/SoundOff/Default.png", "buttons/Square/SoundOff/Hover.png" };
+
     private final ThrongGame game;
 
     private final OrthographicCamera camera;
     private final Viewport viewport;
+    // The world stage holds the pets and is drawn with the world at the dynamic resolution, the UI stage
+    // holds the buttons and stays at native resolution
+    private final Stage worldStage;
     private final Stage stage;
 
     private final Texture backgroundTexture;
+    private final TextureRegion fruitRegion;
     private final Skin skin;
-    private final Array<Fruit> fruits = new Array<>();
-    private final Pet pet;
+    private final GameWorld world = new GameWorld();
+    private final AnimationManager animations;
+    private final Simulation simulation;
+    private InputRecording recording;
     private final PetStatsUI petStatsUI;
+    private final StatBarRenderer statBars;
+    // Every pet but the player's, which its actor draws so it can be dragged
+    private final CrowdRenderer crowd;
     private final DraggablePetActor draggablePet;
-    private float timeSinceManualInput = 0f;
-    private static final float AUTO_BEHAVIOR_TIMEOUT = 1.5f;
+    private final PetLayer petLayer;
+    private final InputMultiplexer multiplexer;
+    private final SoundToggleButton soundButton;
+    // What the camera sees, refreshed every frame; pets and fruits outside it are not drawn
+    private final Rectangle viewBounds = new Rectangle();
+    private final Array<Fruit> visibleFruits = new Array<>();
+    private final Array<PetSnapshot> visiblePets = new Array<>();
+    // Reaches past the pet sprite to the stat bars drawn above it
+    private static final float PET_CULL_MARGIN = 160f;
+    // The pet the buttons and WASD act on
+    private static final int PLAYER_PET = 0;
+    private float moveX, moveY;
+    // Published on the simulation thread, played and shown here on the render thread once per frame
+    private final EventBus.Subscription worldEvents;
+    private final EventBus.Handler worldEventHandler = new EventBus.Handler() {
+        @Override
+        public void onEvent(int type, int pet, int detail, float x, float y) {
+            switch (type) {
+                case EventBus.ATE:
+                    AudioManager.getInstance().playEatingSound();
+                    break;
+                case EventBus.STATE_CHANGED:
+                    if (pet == PLAYER_PET)
+                        petStatsUI.setBusy(isTimedAction(detail));
+                    break;
+                default:
+                    break;
+            }
+        }
+    };
     private Texture soundOnDefault;
     private Texture soundOnHover;
     private Texture soundOffDefault;
     private Texture soundOffHover;
 
-    public GameScreen(final ThrongGame game) {
+    public GameScreen(final ThrongGame game, AnimationManager animations) {
         this.game = game;
+        this.animations = animations;
 
         camera = new OrthographicCamera();
         viewport = new ScreenViewport(camera);
         camera.position.set(viewport.getWorldWidth() / 2, viewport.getWorldHeight() / 2, 0);
 
+        worldStage = new Stage(viewport, game.batch);
         stage = new Stage(viewport, game.batch);
 
-        backgroundTexture = new Texture("background/Grass_Sample.png");
-        skin = new Skin(Gdx.files.internal("skin/uiskin.json"));
-        soundOnDefault = new Texture(Gdx.files.internal("buttons/Square/SoundOn/Default.png"));
-        soundOnHover = new Texture(Gdx.files.internal("buttons/Square/SoundOn/Hover.png"));
-        soundOffDefault = new Texture(Gdx.files.internal("buttons/Square/SoundOff/Default.png"));
-        soundOffHover = new Texture(Gdx.files.internal("buttons/Square/SoundOff/Hover.png"));
+        // Shared with other screens through the screen manager
+        ScreenManager screens = game.screens;
+        backgroundTexture = screens.texture("background/Grass_Sample.png");
+        // Every dropped fruit draws this region instead of loading its own texture
+        fruitRegion = new TextureRegion(screens.texture("apple/apple_default.png"));
+        skin = screens.skin(SKIN_PATH);
+        soundOnDefault = screens.texture("buttons/Square/SoundOn/Default.png");
+        soundOnHover = screens.texture("buttons/Square/SoundOn/Hover.png");
+        soundOffDefault = screens.texture("buttons/Square/SoundOff/Default.png");
+        soundOffHover = screens.texture("buttons/Square/SoundOff/Hover.png");
 
         // Create sound toggle button
-        ImageButton soundButton = new ImageButton(
-                new TextureRegionDrawable(AudioManager.getInstance().isMuted() ? soundOffDefault : soundOnDefault),
-                new TextureRegionDrawable(AudioManager.getInstance().isMuted() ? soundOffHover : soundOnHover));
+        soundButton = new SoundToggleButton(soundOnDefault, soundOnHover, soundOffDefault, soundOffHover);
         soundButton.setPosition(20, viewport.getWorldHeight() - 70);
         soundButton.setSize(50, 50);
         stage.addActor(soundButton);
 
-        soundButton.addListener(new ChangeListener() {
-            @Override
-            public void changed(ChangeEvent event, Actor actor) {
-                AudioManager.getInstance().toggleMute();
-                soundButton.getStyle().imageUp = new TextureRegionDrawable(
-                        AudioManager.getInstance().isMuted() ? soundOffDefault : soundOnDefault);
-                soundButton.getStyle().imageOver = new TextureRegionDrawable(
-                        AudioManager.getInstance().isMuted() ? soundOffHover : soundOnHover);
-            }
-        });
-
-        pet = new Pet(new Vector2(viewport.getWorldWidth() / 2f, viewport.getWorldHeight() / 2f), null);
+        // Before any pet is added, so the stat bars hear about every pet
+        worldEvents = world.getEvents().subscribe();
+        Pet pet = new Pet(new Vector2(viewport.getWorldWidth() / 2f, viewport.getWorldHeight() / 2f), animations);
+        pet.recordHistory();
+        world.addPet(pet);
+        simulation = new Simulation(world, fruitRegion, viewport.getWorldWidth(), viewport.getWorldHeight());
+        if (game.inputRecordingPath != null) {
+            recording = new InputRecording(viewport.getWorldWidth(), viewport.getWorldHeight());
+            simulation.record(recording);
+        }
+        simulation.setControlledPet(PLAYER_PET);
+        if (game.simulationThread) {
+            simulation.start();
+        } else {
+            simulation.setPerfOverlay(game.perfOverlay);
+        }
 
-        petStatsUI = new PetStatsUI(stage, skin, new PetStatsUI.PetActionListener() {
+        statBars = new StatBarRenderer(skin.getFont("default-font"));
+        crowd = new CrowdRenderer(animations);
+        petStatsUI = new PetStatsUI(stage, new PetStatsUI.PetActionListener() {
             @Override
             public void onFeed() {
-                float angle = (float) (Math.random() * Math.PI * 2);
-                float dropDistance = 200;
-                Vector2 dropPos = new Vector2(
-                        pet.getPosition().x + (float) Math.cos(angle) * dropDistance,
-                        pet.getPosition().y + (float) Math.sin(angle) * dropDistance);
-                fruits.add(new Fruit(dropPos));
+                simulation.feed(PLAYER_PET);
             }
 
             @Override
             public void onPlay() {
-                pet.play();
+                simulation.play(PLAYER_PET);
             }
 
             @Override
             public void onSleep() {
-                pet.sleep();
+                simulation.sleep(PLAYER_PET);
             }
         });
-        pet.setStatsObserver(petStatsUI);
 
-        draggablePet = new DraggablePetActor(pet);
-        stage.addActor(draggablePet);
+        draggablePet = new DraggablePetActor(simulation, PLAYER_PET);
+        // Pets live in their own layer: it culls against the view and hit tests through a grid.
+        // The buttons and sound toggle are on the UI stage, they never leave the screen.
+        petLayer = new PetLayer();
+        petLayer.setCullingArea(viewBounds);
+        petLayer.addActor(draggablePet);
+        worldStage.addActor(petLayer);
 
-        InputMultiplexer multiplexer = new InputMultiplexer();
+        multiplexer = new InputMultiplexer();
         multiplexer.addProcessor(stage);
+        multiplexer.addProcessor(worldStage);
         multiplexer.addProcessor(new InputAdapter() {
+            @Override
+            public boolean keyDown(int keycode) {
+                if (keycode == Input.Keys.ESCAPE || keycode == Input.Keys.BACK) {
+                    game.screens.showMainMenu();
+                    return true;
+                }
+                return false;
+            }
         });
-        Gdx.input.setInputProcessor(multiplexer);
     }
 
-    private void checkFruitCollision() {
-        for (int i = fruits.size - 1; i >= 0; i--) {
-            Fruit fruit = fruits.get(i);
-            try {
-                if (fruit != null && pet.getBounds().overlaps(fruit.getBounds())) {
-                    fruit.touch();
-                    pet.eat();
-                    AudioManager.getInstance().playEatingSound();
-                    fruit.dispose();
-                    fruits.removeIndex(i);
-                }
-            } catch (Exception e) {
-                Gdx.app.error("Collision", "Error during fruit collision: " + e.getMessage(), e);
-            }
-        }
+    private static boolean isTimedAction(int state) {
+        return state == Pet.PetState.PLAYING.ordinal() || state == Pet.PetState.SLEEPING.ordinal()
+                || state == Pet.PetState.EATING.ordinal();
     }
 
     private void update(float delta) {
         float dx = 0, dy = 0;
-        boolean keyPressed = false;
-        if (Gdx.input.isKeyPressed(Input.Keys.W)) {
+        if (Gdx.input.isKeyPressed(Input.Keys.W))
             dy += 0.7f;
-            keyPressed = true;
-        }
-        if (Gdx.input.isKeyPressed(Input.Keys.S)) {
+        if (Gdx.input.isKeyPressed(Input.Keys.S))
             dy -= 0.7f;
-            keyPressed = true;
-        }
-        if (Gdx.input.isKeyPressed(Input.Keys.A)) {
+        if (Gdx.input.isKeyPressed(Input.Keys.A))
             dx -= 0.7f;
-            keyPressed = true;
-        }
-        if (Gdx.input.isKeyPressed(Input.Keys.D)) {
+        if (Gdx.input.isKeyPressed(Input.Keys.D))
             dx += 0.7f;
-            keyPressed = true;
+        // The simulation holds the direction, so only changes are sent
+        if (dx != moveX || dy != moveY) {
+            moveX = dx;
+            moveY = dy;
+            simulation.move(dx, dy);
         }
+        simulation.update(delta);
+        worldEvents.drain(worldEventHandler);
+    }
 
-        if (keyPressed) {
-            pet.manualMove(dx, dy, viewport.getWorldWidth(), viewport.getWorldHeight(), delta);
-            timeSinceManualInput = 0f;
-        } else {
-            timeSinceManualInput += delta;
-        }
-        pet.suppressAutoBehavior = (!keyPressed && timeSinceManualInput < AUTO_BEHAVIOR_TIMEOUT);
-        pet.update(delta, viewport.getWorldWidth(), viewport.getWorldHeight());
-        checkFruitCollision();
-
+    private void updateViewBounds() {
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        viewBounds.set(camera.position.x - width / 2f, camera.position.y - height / 2f, width, height);
+        simulation.getSnapshot().cull(viewBounds, PET_CULL_MARGIN, visibleFruits, visiblePets);
+        // Pets out of this view are not animated, from the next step on
+        simulation.setView(viewBounds, viewport.getScreenWidth());
     }
 
     private void drawFruits() {
-        for (Fruit fruit : fruits) {
+        for (Fruit fruit : visibleFruits) {
             TextureRegion frame = fruit.getFrame();
             Vector2 pos = fruit.getPosition();
             float size = fruit.getSize();
@@ -176,74 +232,153 @@ public class GameScreen implements Screen {
     @Override
     public void render(float delta) {
         update(delta);
-        Vector2 petPos = pet.getPosition();
-        float offsetY = 100f;
-
-        petStatsUI.getFloatingGroup().setPosition(
-                petPos.x - petStatsUI.getFloatingGroup().getWidth() / 2f,
-                petPos.y + offsetY);
+        // Everything below draws this one step, whatever the simulation does meanwhile
+        simulation.acquireSnapshot();
 
         Gdx.gl.glClearColor(0f, 0f, 0f, 1f);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         camera.update();
+        updateViewBounds();
+        // Idle frames are spaced out on purpose, they say nothing about GPU load
+        if (!game.renderPacer.isIdle())
+            game.dynamicResolution.update(Gdx.graphics.getDeltaTime());
+        game.dynamicResolution.begin(viewport);
         game.batch.setProjectionMatrix(camera.combined);
+        PerfOverlay perf = game.perfOverlay;
+        perf.begin(PerfOverlay.BACKGROUND);
         game.batch.begin();
         float bgWidth = backgroundTexture.getWidth();
         float bgHeight = backgroundTexture.getHeight();
 
-        int tilesX = (int) Math.ceil(viewport.getWorldWidth() / bgWidth) + 1;
-        int tilesY = (int) Math.ceil(viewport.getWorldHeight() / bgHeight) + 1;
+        // Only the tiles under the camera, starting from the tile containing the view's corner
+        float startX = MathUtils.floor(viewBounds.x / bgWidth) * bgWidth;
+        float startY = MathUtils.floor(viewBounds.y / bgHeight) * bgHeight;
+        float endX = viewBounds.x + viewBounds.width;
+        float endY = viewBounds.y + viewBounds.height;
 
-        for (int i = 0; i < tilesX; i++) {
-            for (int j = 0; j < tilesY; j++) {
-                float x = i * bgWidth;
-                float y = j * bgHeight;
+        for (float x = startX; x < endX; x += bgWidth) {
+            for (float y = startY; y < endY; y += bgHeight) {
                 game.batch.draw(backgroundTexture, x, y);
             }
         }
 
+        perf.end(PerfOverlay.BACKGROUND);
+
+        perf.begin(PerfOverlay.FRUITS);
         drawFruits();
+        perf.end(PerfOverlay.FRUITS);
         game.batch.end();
 
-        stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
+        perf.begin(PerfOverlay.CROWD);
+        crowd.render(game.batch, visiblePets, simulation.getSnapshot().getPets().get(PLAYER_PET));
+        perf.end(PerfOverlay.CROWD);
+
+        perf.begin(PerfOverlay.STAT_BARS);
+        game.batch.begin();
+        statBars.render(game.batch, visiblePets);
+        game.batch.end();
+        perf.end(PerfOverlay.STAT_BARS);
+
+        perf.begin(PerfOverlay.STAGE);
+        float actDelta = Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f);
+        worldStage.act(actDelta);
+        worldStage.draw();
+        game.dynamicResolution.end(game.batch);
+        stage.act(actDelta);
         stage.draw();
+        perf.end(PerfOverlay.STAGE);
+
+        perf.render(game.batch);
+        game.renderPacer.frame(delta, isAnimating(), timeToNextAnimationFrame());
+    }
+
+    // Walking pets and the perf overlay need every frame, idle animations only their frame changes
+    private boolean isAnimating() {
+        if (game.perfOverlay.isVisible())
+            return true;
+        for (int i = 0; i < visiblePets.size; i++) {
+            if (visiblePets.get(i).getState() == Pet.PetState.WALKING)
+                return true;
+        }
+        return false;
+    }
+
+    private float timeToNextAnimationFrame() {
+        float next = Float.MAX_VALUE;
+        for (int i = 0; i < visiblePets.size; i++) {
+            next = Math.min(next, visiblePets.get(i).getTimeToNextFrame());
+        }
+        return next;
     }
 
     @Override
     public void resize(int width, int height) {
         viewport.update(width, height, true);
         camera.position.set(viewport.getWorldWidth() / 2f, viewport.getWorldHeight() / 2f, 0);
+        simulation.setWorldSize(viewport.getWorldWidth(), viewport.getWorldHeight());
     }
 
     @Override
     public void show() {
-
+        Gdx.input.setInputProcessor(multiplexer);
+        simulation.setPaused(false);
+        Gdx.input.setCatchKey(Input.Keys.BACK, true);
+        soundButton.refresh();
     }
 
     @Override
     public void pause() {
+        simulation.setPaused(true);
         AudioManager.getInstance().pause();
     }
 
     @Override
     public void resume() {
+        // After a context loss, the frame each visible pet shows comes back first, then the rest of its animation
+        TextureRegistry textures = TextureRegistry.get();
+        for (int i = 0; i < visiblePets.size; i++) {
+            textures.prioritize(visiblePets.get(i).getCurrentFrame().getTexture());
+        }
+        for (int i = 0; i < visiblePets.size; i++) {
+            Animation<TextureRegion> animation = visiblePets.get(i).getAnimation();
+            if (animation == null)
+                continue;
+            for (TextureRegion frame : animation.getKeyFrames()) {
+                textures.prioritize(frame.getTexture());
+            }
+        }
+        simulation.setPaused(false);
         AudioManager.getInstance().resume();
     }
 
     @Override
     public void hide() {
+        Gdx.input.setCatchKey(Input.Keys.BACK, false);
+        // The world waits while another screen is up, as it did when it was stepped from render()
+        simulation.setPaused(true);
         AudioManager.getInstance().pause();
     }
 
     @Override
     public void dispose() {
-        backgroundTexture.dispose();
-        skin.dispose();
+        for (String path : TEXTURE_PATHS) {
+            game.screens.release(path);
+        }
+        game.screens.release(SKIN_PATH);
         stage.dispose();
-        pet.dispose();
-        soundOnDefault.dispose();
-        soundOnHover.dispose();
-        soundOffDefault.dispose();
-        soundOffHover.dispose();
+        worldStage.dispose();
+        simulation.dispose();
+        worldEvents.close();
+        if (recording != null) {
+            recording.finish(world);
+            recording.save(Gdx.files.absolute(game.inputRecordingPath));
+            Gdx.app.log("GameScreen", "Saved " + recording.getSteps() + " steps of input to "
+                    + game.inputRecordingPath);
+        }
+        world.dispose();
+        animations.dispose();
+        petStatsUI.dispose();
+        statBars.dispose();
+        crowd.dispose();
     }
 }
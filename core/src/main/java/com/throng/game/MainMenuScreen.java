@@ -15,8 +15,17 @@ import com.badlogic.gdx.scenes.scene2d.ui.ImageButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.throng.game.audio.AudioManager;
+import com.throng.game.debug.PerfOverlay;
+import com.throng.game.ui.SoundToggleButton;
 
 public class MainMenuScreen implements Screen {
+    private static final String[] TEXTURE_PATHS = {
+            "background/menuBG.jpg", "throngs_logo_text.png",
+            "buttons/Square/Play/Default.png", "buttons/Square/Play/Hover.png",
+            "buttons/Square/Home/Default.png", "buttons/Square/Home/Hover.png",
+            "buttons/Square/SoundOn/Default.png", "buttons/Square/SoundOn/Hover.png",
+            "buttons/Square/SoundOff/Default.png", "buttons/Square/SoundOff/Hover.png" };
+
     private final ThrongGame game;
     private final OrthographicCamera camera;
     private Viewport viewport;
@@ -32,6 +41,7 @@ public class MainMenuScreen implements Screen {
     private Texture soundOnHover;
     private Texture soundOffDefault;
     private Texture soundOffHover;
+    private SoundToggleButton soundButton;
 
     public MainMenuScreen(ThrongGame game) {
         this.game = game;
@@ -42,19 +52,19 @@ public class MainMenuScreen implements Screen {
 
         // UI Stage
         stage = new Stage(viewport, game.batch);
-        Gdx.input.setInputProcessor(stage);
 
-        // Load assets
-        backgroundTexture = new Texture(Gdx.files.internal("background/menuBG.jpg"));
-        logoTexture = new Texture(Gdx.files.internal("throngs_logo_text.png"));
-        playButtonDefault = new Texture(Gdx.files.internal("buttons/Square/Play/Default.png"));
-        playButtonHover = new Texture(Gdx.files.internal("buttons/Square/Play/Hover.png"));
-        exitButtonDefault = new Texture(Gdx.files.internal("buttons/Square/Home/Default.png"));
-        exitButtonHover = new Texture(Gdx.files.internal("buttons/Square/Home/Hover.png"));
-        soundOnDefault = new Texture(Gdx.files.internal("buttons/Square/SoundOn/Default.png"));
-        soundOnHover = new Texture(Gdx.files.internal("buttons/Square/SoundOn/Hover.png"));
-        soundOffDefault = new Texture(Gdx.files.internal("buttons/Square/SoundOff/Default.png"));
-        soundOffHover = new Texture(Gdx.files.internal("buttons/Square/SoundOff/Hover.png"));
+        // Load assets; shared with other screens through the screen manager
+        ScreenManager screens = game.screens;
+        backgroundTexture = screens.texture("background/menuBG.jpg");
+        logoTexture = screens.texture("throngs_logo_text.png");
+        playButtonDefault = screens.texture("buttons/Square/Play/Default.png");
+        playButtonHover = screens.texture("buttons/Square/Play/Hover.png");
+        exitButtonDefault = screens.texture("buttons/Square/Home/Default.png");
+        exitButtonHover = screens.texture("buttons/Square/Home/Hover.png");
+        soundOnDefault = screens.texture("buttons/Square/SoundOn/Default.png");
+        soundOnHover = screens.texture("buttons/Square/SoundOn/Hover.png");
+        soundOffDefault = screens.texture("buttons/Square/SoundOff/Default.png");
+        soundOffHover = screens.texture("buttons/Square/SoundOff/Hover.png");
 
         // UI elements
         createUI();
@@ -67,24 +77,11 @@ public class MainMenuScreen implements Screen {
         stage.addActor(table);
 
         // Create sound toggle button
-        ImageButton soundButton = new ImageButton(
-                new TextureRegionDrawable(AudioManager.getInstance().isMuted() ? soundOffDefault : soundOnDefault),
-                new TextureRegionDrawable(AudioManager.getInstance().isMuted() ? soundOffHover : soundOnHover));
+        soundButton = new SoundToggleButton(soundOnDefault, soundOnHover, soundOffDefault, soundOffHover);
         soundButton.setPosition(20, viewport.getWorldHeight() - 70);
         soundButton.setSize(50, 50);
         stage.addActor(soundButton);
 
-        soundButton.addListener(new ChangeListener() {
-            @Override
-            public void changed(ChangeEvent event, Actor actor) {
-                AudioManager.getInstance().toggleMute();
-                soundButton.getStyle().imageUp = new TextureRegionDrawable(
-                        AudioManager.getInstance().isMuted() ? soundOffDefault : soundOnDefault);
-                soundButton.getStyle().imageOver = new TextureRegionDrawable(
-                        AudioManager.getInstance().isMuted() ? soundOffHover : soundOnHover);
-            }
-        });
-
         Image logo = new Image(logoTexture);
 
         float scale = 0.48f;
@@ -112,7 +109,7 @@ public class MainMenuScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 AudioManager.getInstance().playClickMenuSound();
-                game.setScreen(new GameScreen(game));
+                game.screens.showGame();
             }
         });
 
@@ -126,6 +123,8 @@ public class MainMenuScreen implements Screen {
 
     @Override
     public void show() {
+        Gdx.input.setInputProcessor(stage);
+        soundButton.refresh();
         AudioManager.getInstance().playBackgroundMusic("sounds/game-music-loop.mp3");
     }
 
@@ -149,13 +148,22 @@ public class MainMenuScreen implements Screen {
         float x = (viewport.getWorldWidth() - drawWidth) / 2f;
         float y = 0f;
 
+        PerfOverlay perf = game.perfOverlay;
+        perf.begin(PerfOverlay.BACKGROUND);
         game.batch.begin();
         game.batch.draw(backgroundTexture, x, y, drawWidth, drawHeight);
         game.batch.end();
+        perf.end(PerfOverlay.BACKGROUND);
 
         // Draw UI
+        perf.begin(PerfOverlay.STAGE);
         stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
         stage.draw();
+        perf.end(PerfOverlay.STAGE);
+
+        perf.render(game.batch);
+        // Nothing on the menu moves by itself, input wakes it
+        game.renderPacer.frame(delta, game.perfOverlay.isVisible(), Float.MAX_VALUE);
     }
 
     @Override
@@ -176,20 +184,14 @@ public class MainMenuScreen implements Screen {
 
     @Override
     public void hide() {
-        dispose();
+        // Kept warm by the screen manager; disposed when it is trimmed or the game exits.
     }
 
     @Override
     public void dispose() {
-        backgroundTexture.dispose();
-        playButtonDefault.dispose();
-        playButtonHover.dispose();
-        exitButtonDefault.dispose();
-        exitButtonHover.dispose();
-        soundOnDefault.dispose();
-        soundOnHover.dispose();
-        soundOffDefault.dispose();
-        soundOffHover.dispose();
+        for (String path : TEXTURE_PATHS) {
+            game.screens.release(path);
+        }
         stage.dispose();
     }
 }
@@ -0,0 +1,79 @@
+package com.throng.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Timer;
+
+/**
+ * Switches to non-continuous rendering while nothing on screen moves. Screens report each rendered frame with
+ * whether something is moving and how long until the scene next changes on its own (the next animation frame);
+ * once the scene has been still for a moment, the pacer stops continuous rendering and asks for a single frame
+ * at that moment instead. The simulation keeps running, it just advances by the longer delta of the next frame.
+ * Input events wake rendering through the backend, and touches or held keys bring back continuous rendering.
+ */
+public class RenderPacer {
+    // Stay at full rate this long after the last movement or input, so short pauses do not stutter
+    private static final float SETTLE_SECONDS = 1.5f;
+    private static final float MIN_IDLE_INTERVAL = 1 / 30f;
+    private static final float MAX_IDLE_INTERVAL = 0.5f;
+
+    private final Timer.Task wakeTask = new Timer.Task() {
+        @Override
+        public void run() {
+            Gdx.graphics.requestRendering();
+        }
+    };
+
+    private boolean enabled = true;
+    private boolean idle;
+    private float settle = SETTLE_SECONDS;
+
+    /**
+     * Call once per rendered frame.
+     *
+     * @param busy       something moves and needs every frame, like a walking pet
+     * @param nextChange seconds until the scene changes by itself, {@link Float#MAX_VALUE} if it never does
+     */
+    public void frame(float delta, boolean busy, float nextChange) {
+        if (!enabled || busy || Gdx.input.isTouched() || Gdx.input.isKeyPressed(Input.Keys.ANY_KEY)) {
+            settle = SETTLE_SECONDS;
+        } else {
+            settle -= delta;
+        }
+        setIdle(settle <= 0);
+        if (idle) {
+            wakeTask.cancel();
+            Timer.schedule(wakeTask, MathUtils.clamp(nextChange, MIN_IDLE_INTERVAL, MAX_IDLE_INTERVAL));
+        }
+    }
+
+    /** Back to continuous rendering right away, for changes that do not come from input (screen switches). */
+    public void wake() {
+        settle = SETTLE_SECONDS;
+        setIdle(false);
+    }
+
+    private void setIdle(boolean idle) {
+        if (this.idle == idle)
+            return;
+        this.idle = idle;
+        if (!idle)
+            wakeTask.cancel();
+        Gdx.graphics.setContinuousRendering(!idle);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled)
+            wake();
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    public void dispose() {
+        wakeTask.cancel();
+    }
+}
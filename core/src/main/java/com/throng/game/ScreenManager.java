@@ -0,0 +1,156 @@
+package com.throng.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Disposable;
+import com.throng.game.animation.AnimationLoader;
+import com.throng.game.debug.Telemetry;
+import com.throng.game.render.TextureRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps screens alive between switches and hands out textures shared through the
+ * game's {@link AssetManager}, which reference-counts them across screens.
+ */
+public class ScreenManager implements Disposable {
+    // Cached screens that are not showing are dropped once the heap is this full.
+    private static final float MEMORY_PRESSURE_RATIO = 0.75f;
+    // GL thread time per frame for uploading animation frames while the game screen loads
+    private static final long UPLOAD_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private final ThrongGame game;
+    private final AssetManager assets;
+
+    private MainMenuScreen mainMenuScreen;
+    private GameScreen gameScreen;
+    // Animations for the game screen, decoding in the background while the current screen keeps rendering
+    private AnimationLoader gameAnimations;
+
+    public ScreenManager(ThrongGame game) {
+        this.game = game;
+        this.assets = game.assetManager;
+    }
+
+    public void showMainMenu() {
+        if (mainMenuScreen == null) {
+            mainMenuScreen = new MainMenuScreen(game);
+        }
+        switchTo(mainMenuScreen);
+    }
+
+    /** Switches to the game screen, right away if it is cached, otherwise once {@link #update()} has loaded it. */
+    public void showGame() {
+        if (gameScreen != null) {
+            switchTo(gameScreen);
+        } else if (gameAnimations == null) {
+            gameAnimations = new AnimationLoader();
+        }
+    }
+
+    /** Called every frame: uploads pending animation frames within the budget and opens the game when ready. */
+    public void update() {
+        if (gameAnimations == null)
+            return;
+        // Loading is progress the pacer cannot see
+        game.renderPacer.wake();
+        if (gameAnimations.update(UPLOAD_BUDGET_NANOS)) {
+            gameScreen = new GameScreen(game, gameAnimations.getAnimationManager());
+            gameAnimations = null;
+            switchTo(gameScreen);
+        }
+    }
+
+    public boolean isLoading() {
+        return gameAnimations != null;
+    }
+
+    private void switchTo(Screen screen) {
+        game.setScreen(screen);
+        if (isUnderMemoryPressure() || TextureRegistry.get().isOverBudget()) {
+            trimMemory();
+        }
+    }
+
+    /** Returns the texture at {@code path}, loading it only if no other screen holds it yet. */
+    public Texture texture(String path) {
+        TextureLoader.TextureParameter parameter = null;
+        if (!assets.isLoaded(path, Texture.class)) {
+            // Through the registry, which accounts for it and restores it quickly after a context loss
+            parameter = new TextureLoader.TextureParameter();
+            parameter.textureData = TextureRegistry.get().data(Gdx.files.internal(path), TextureRegistry.Priority.UI);
+        }
+        Texture texture = load(path, Texture.class, parameter);
+        TextureRegistry.get().track(texture, TextureRegistry.Priority.UI);
+        return texture;
+    }
+
+    public Skin skin(String path) {
+        Skin skin = load(path, Skin.class, null);
+        // Atlas pages load the usual way, they are only accounted for
+        for (Texture page : skin.getAtlas().getTextures()) {
+            TextureRegistry.get().track(page, TextureRegistry.Priority.UI);
+        }
+        return skin;
+    }
+
+    private <T> T load(String path, Class<T> type, AssetLoaderParameters<T> parameter) {
+        if (assets.isLoaded(path, type)) {
+            assets.load(path, type);
+            return assets.get(path, type);
+        }
+        Object load = Telemetry.get().beginAssetLoad();
+        assets.load(path, type, parameter);
+        T asset = assets.finishLoadingAsset(path);
+        Telemetry.get().endAssetLoad(load, path, type.getSimpleName());
+        return asset;
+    }
+
+    /** Drops one reference taken by {@link #texture} or {@link #skin}; the asset is disposed with the last one. */
+    public void release(String path) {
+        if (assets.isLoaded(path)) {
+            assets.unload(path);
+        }
+    }
+
+    /** Disposes every cached screen that is not currently showing. */
+    public void trimMemory() {
+        Screen current = game.getScreen();
+        if (mainMenuScreen != null && mainMenuScreen != current) {
+            mainMenuScreen.dispose();
+            mainMenuScreen = null;
+        }
+        if (gameScreen != null && gameScreen != current) {
+            gameScreen.dispose();
+            gameScreen = null;
+        }
+        Gdx.app.debug("ScreenManager", "Trimmed cached screens, " + assets.getLoadedAssets() + " assets still loaded");
+    }
+
+    private boolean isUnderMemoryPressure() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return used > runtime.maxMemory() * MEMORY_PRESSURE_RATIO;
+    }
+
+    @Override
+    public void dispose() {
+        if (gameAnimations != null) {
+            gameAnimations.dispose();
+            gameAnimations = null;
+        }
+        if (mainMenuScreen != null) {
+            mainMenuScreen.dispose();
+            mainMenuScreen = null;
+        }
+        if (gameScreen != null) {
+            gameScreen.dispose();
+            gameScreen = null;
+        }
+    }
+}
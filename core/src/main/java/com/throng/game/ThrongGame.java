@@ -3,11 +3,18 @@ package com.throng.game;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.throng.game.debug.PerfOverlay;
+import com.throng.game.debug.Telemetry;
+import com.throng.game.render.DynamicResolution;
+import com.throng.game.render.TextureRegistry;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link com.badlogic.gdx.ApplicationListener} implementation shared by all
@@ -17,19 +24,76 @@ import com.badlogic.gdx.utils.ScreenUtils;
 // Main game class that manages the game state and logic
 
 public class ThrongGame extends Game {
+    // GL thread time per frame for uploading textures restored after a context loss
+    private static final long RESTORE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
     public SpriteBatch batch;
     public AssetManager assetManager;
+    public ScreenManager screens;
+    public PerfOverlay perfOverlay;
+    // Created with the game, so launchers can configure it before create()
+    public final RenderPacer renderPacer = new RenderPacer();
+    public final DynamicResolution dynamicResolution = new DynamicResolution();
+    // Steps the game world on its own thread instead of inside render()
+    public boolean simulationThread;
+    // Where each game session's input is saved for replay when its screen is disposed, null to not record
+    public String inputRecordingPath;
+    // Texture memory the game aims to stay under, see TextureRegistry
+    public long textureBudgetBytes = TextureRegistry.DEFAULT_BUDGET_BYTES;
 
     @Override
     public void create() {
+        TextureRegistry.get().setBudgetBytes(textureBudgetBytes);
         batch = new SpriteBatch();
         assetManager = new AssetManager();
+        screens = new ScreenManager(this);
+        perfOverlay = new PerfOverlay();
+
+        screens.showMainMenu();
+    }
+
+    @Override
+    public void render() {
+        Object frame = Telemetry.get().beginFrame();
+        // Textures lost with the GL context come back over the first frames after resume
+        if (TextureRegistry.get().update(RESTORE_BUDGET_NANOS))
+            renderPacer.wake();
+        screens.update();
+        super.render();
+        Telemetry.get().endFrame(frame, screen);
+    }
 
-        setScreen(new MainMenuScreen(this));
+    @Override
+    public void setScreen(Screen screen) {
+        Screen previous = this.screen;
+        Object transition = Telemetry.get().beginScreenTransition();
+        super.setScreen(screen);
+        renderPacer.wake();
+        Telemetry.get().endScreenTransition(transition, previous, screen);
+    }
+
+    @Override
+    public void pause() {
+        TextureRegistry.get().pause();
+        super.pause();
+        // Backgrounded apps are the first to be killed for memory, so drop the screens we are not showing
+        screens.trimMemory();
+    }
+
+    @Override
+    public void resume() {
+        // Before the screen's resume, which moves what it shows to the front of the restore
+        TextureRegistry.get().resume();
+        super.resume();
+        renderPacer.wake();
     }
 
     @Override
     public void dispose() {
+        renderPacer.dispose();
+        dynamicResolution.dispose();
+        screens.dispose();
+        perfOverlay.dispose();
         batch.dispose();
         assetManager.dispose();
     }
@@ -0,0 +1,232 @@
+package com.throng.game.animation;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.throng.game.debug.Telemetry;
+import com.throng.game.render.TextureRegistry;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the pet animations in two halves. A pool with one worker per core decodes the frame PNGs and builds their
+ * hit masks, which is nearly all of the cost, and hands the pixmaps over through a small bounded queue. The GL
+ * thread uploads them in {@link #update(long)} for as long as its time budget allows, so a screen can keep
+ * rendering while the animations stream in. The queue bound also caps how many decoded 900x900 frames wait in
+ * memory at once: workers block until the GL thread catches up.
+ */
+public class AnimationLoader implements Disposable {
+    // Decoded frames waiting for upload, about 3 MB each
+    private static final int QUEUE_CAPACITY = 8;
+
+    private static final class Decoded {
+        final int clip;
+        final int frame;
+        final FileHandle file;
+        final Pixmap pixmap;
+        final HitMask mask;
+
+        Decoded(int clip, int frame, FileHandle file, Pixmap pixmap, HitMask mask) {
+            this.clip = clip;
+            this.frame = frame;
+            this.file = file;
+            this.pixmap = pixmap;
+            this.mask = mask;
+        }
+    }
+
+    private final AnimationManager target;
+    private final ArrayBlockingQueue<Decoded> decoded = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ExecutorService workers;
+    private volatile Throwable failure;
+
+    // GL thread state
+    private final TextureRegion[][] frames;
+    private final HitMask[][] masks;
+    private final int[] uploadedPerClip;
+    private final Object[] telemetry;
+    private final int totalFrames;
+    private int uploaded;
+    private boolean disposed;
+
+    /** Starts decoding right away; the animations are usable from {@link #getAnimationManager()} once done. */
+    public AnimationLoader() {
+        this(null, Runtime.getRuntime().availableProcessors());
+    }
+
+    public AnimationLoader(int decodeThreads) {
+        this(null, decodeThreads);
+    }
+
+    AnimationLoader(AnimationManager target) {
+        this(target, Runtime.getRuntime().availableProcessors());
+    }
+
+    private AnimationLoader(AnimationManager target, int decodeThreads) {
+        this.target = target != null ? target : new AnimationManager(this);
+        AnimationManager.Clip[] clips = AnimationManager.CLIPS;
+        frames = new TextureRegion[clips.length][];
+        masks = new HitMask[clips.length][];
+        uploadedPerClip = new int[clips.length];
+        telemetry = new Object[clips.length];
+        int total = 0;
+        for (int c = 0; c < clips.length; c++) {
+            frames[c] = new TextureRegion[clips[c].frameCount];
+            masks[c] = new HitMask[clips[c].frameCount];
+            telemetry[c] = Telemetry.get().beginAssetLoad();
+            total += clips[c].frameCount;
+        }
+        totalFrames = total;
+
+        workers = Executors.newFixedThreadPool(Math.max(1, decodeThreads), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "AnimationDecode-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // In clip order, so the first animations finish first
+        for (int c = 0; c < clips.length; c++) {
+            for (int f = 0; f < clips[c].frameCount; f++) {
+                final int clip = c;
+                final int frame = f;
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        decode(clip, frame);
+                    }
+                });
+            }
+        }
+        workers.shutdown();
+    }
+
+    private void decode(int clip, int frame) {
+        if (failure != null)
+            return;
+        Pixmap pixmap = null;
+        try {
+            FileHandle file = Gdx.files.internal(AnimationManager.CLIPS[clip].framePath(frame));
+            pixmap = new Pixmap(file);
+            HitMask mask = HitMask.fromPixmap(pixmap, AnimationManager.MASK_CELL_SIZE);
+            decoded.put(new Decoded(clip, frame, file, pixmap, mask));
+        } catch (InterruptedException e) {
+            // Disposed while waiting for room in the queue
+            pixmap.dispose();
+        } catch (Throwable e) {
+            if (pixmap != null)
+                pixmap.dispose();
+            failure = e;
+        }
+    }
+
+    /**
+     * Uploads decoded frames until {@code budgetNanos} is spent, at least one if any is waiting. Call on the GL
+     * thread. Returns true once every animation is loaded.
+     */
+    public boolean update(long budgetNanos) {
+        long start = System.nanoTime();
+        while (uploaded < totalFrames) {
+            checkFailure();
+            Decoded next = decoded.poll();
+            if (next == null)
+                break;
+            upload(next);
+            if (System.nanoTime() - start >= budgetNanos)
+                break;
+        }
+        return uploaded == totalFrames;
+    }
+
+    /** Blocks until everything is loaded, uploading as frames arrive. */
+    public void finishLoading() {
+        try {
+            while (uploaded < totalFrames) {
+                checkFailure();
+                Decoded next = decoded.poll(100, TimeUnit.MILLISECONDS);
+                if (next != null)
+                    upload(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while loading animations", e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            dispose();
+            throw new GdxRuntimeException("Could not load animation frame", failure);
+        }
+    }
+
+    private void upload(Decoded next) {
+        // The registry keeps the file, so the frame comes back from it after a context loss
+        Texture texture = TextureRegistry.get().upload(next.file, next.pixmap, TextureRegistry.Priority.LAZY);
+        frames[next.clip][next.frame] = new TextureRegion(texture);
+        masks[next.clip][next.frame] = next.mask;
+        uploaded++;
+
+        AnimationManager.Clip clip = AnimationManager.CLIPS[next.clip];
+        if (++uploadedPerClip[next.clip] == clip.frameCount) {
+            Animation<TextureRegion> animation = new Animation<>(clip.frameDuration,
+                    new Array<>(frames[next.clip]), Animation.PlayMode.LOOP);
+            target.add(clip.key, animation, masks[next.clip]);
+            Telemetry.get().endAssetLoad(telemetry[next.clip], clip.folderPath, "Animation");
+        }
+    }
+
+    /** Fraction of frames uploaded, for a progress bar. */
+    public float getProgress() {
+        return (float) uploaded / totalFrames;
+    }
+
+    public boolean isDone() {
+        return uploaded == totalFrames;
+    }
+
+    /** The loaded animations; owned by the caller from here on. Only valid once {@link #isDone()}. */
+    public AnimationManager getAnimationManager() {
+        if (!isDone())
+            throw new IllegalStateException("Animations are still loading");
+        return target;
+    }
+
+    /** Stops the workers and frees whatever was loaded so far. Nothing to do once loading is done. */
+    @Override
+    public void dispose() {
+        if (disposed || isDone())
+            return;
+        disposed = true;
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Decoded next;
+        while ((next = decoded.poll()) != null) {
+            next.pixmap.dispose();
+        }
+        for (TextureRegion[] clipFrames : frames) {
+            for (TextureRegion frame : clipFrames) {
+                if (frame != null)
+                    frame.getTexture().dispose();
+            }
+        }
+    }
+}
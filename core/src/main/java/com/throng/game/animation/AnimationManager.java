@@ -1,50 +1,80 @@
 package com.throng.game.animation;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.utils.Array;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 public class AnimationManager {
-    private final HashMap<String, Animation<TextureRegion>> animations = new HashMap<>();
+    // Source pixels per mask cell: frames are drawn at 0.3 scale, so a cell is a little over one screen pixel
+    static final int MASK_CELL_SIZE = 4;
 
-    public AnimationManager() {
-        animations.put("IDLE", loadAnimation("sprite/Idle", 18, 0.1f));
-        animations.put("BLINKING", loadAnimation("sprite/Idle Blinking", 18, 0.1f));
-        animations.put("WALKING", loadAnimation("sprite/Walking", 18, 0.1f));
-        animations.put("SLEEPING", loadAnimation("sprite/hurt", 11, 0.1f));
-        animations.put("PLAYING", loadAnimation("sprite/Slashing Air", 11, 0.1f, "Slashing in The Air"));
-        animations.put("EATING", loadAnimation("sprite/Throwing Air", 11, 0.1f, "Throwing in The Air"));
-    }
+    static final class Clip {
+        final String key;
+        final String folderPath;
+        final int frameCount;
+        final float frameDuration;
+        final String baseName;
+
+        Clip(String key, String folderPath, int frameCount, float frameDuration, String fileNameOverride) {
+            this.key = key;
+            this.folderPath = folderPath;
+            this.frameCount = frameCount;
+            this.frameDuration = frameDuration;
+            this.baseName = fileNameOverride.isEmpty()
+                ? folderPath.substring(folderPath.lastIndexOf("/") + 1)
+                : fileNameOverride;
+        }
 
-    private Animation<TextureRegion> loadAnimation(String folderPath, int frameCount, float frameDuration) {
-        return loadAnimation(folderPath, frameCount, frameDuration, "");
+        String framePath(int frame) {
+            return folderPath + "/0_Dark_Oracle_" + baseName + "_" + String.format("%03d", frame) + ".png";
+        }
     }
 
-    private Animation<TextureRegion> loadAnimation(String folderPath, int frameCount, float frameDuration, String fileNameOverride) {
-        Array<TextureRegion> frames = new Array<>();
+    static final Clip[] CLIPS = {
+        new Clip("IDLE", "sprite/idle", 18, 0.1f, "Idle"),
+        new Clip("BLINKING", "sprite/Idle Blinking", 18, 0.1f, ""),
+        new Clip("WALKING", "sprite/walking", 18, 0.1f, "Walking"),
+        new Clip("SLEEPING", "sprite/hurt", 11, 0.1f, "Hurt"),
+        new Clip("PLAYING", "sprite/Slashing Air", 11, 0.1f, "Slashing in The Air"),
+        new Clip("EATING", "sprite/Throwing Air", 11, 0.1f, "Throwing in The Air") };
 
-        String baseName = fileNameOverride.isEmpty()
-            ? folderPath.substring(folderPath.lastIndexOf("/") + 1)
-            : fileNameOverride;
+    private final HashMap<String, Animation<TextureRegion>> animations = new HashMap<>();
+    private final HashMap<Animation<TextureRegion>, HitMask[]> hitMasks = new HashMap<>();
 
-        for (int i = 0; i < frameCount; i++) {
-            String index = String.format("%03d", i);
-            String filePath = folderPath + "/0_Dark_Oracle_" + baseName + "_" + index + ".png";
-            Texture texture = new Texture(Gdx.files.internal(filePath));
-            frames.add(new TextureRegion(texture));
-        }
+    /**
+     * Loads every animation before returning, with the frames decoded in parallel. On a screen that keeps
+     * rendering, use an {@link AnimationLoader} instead, which spreads the uploads over frames.
+     */
+    public AnimationManager() {
+        new AnimationLoader(this).finishLoading();
+    }
+
+    // Starts empty, the loader adds each clip as its last frame is uploaded
+    AnimationManager(AnimationLoader loader) {
+    }
 
-        return new Animation<>(frameDuration, frames, Animation.PlayMode.LOOP);
+    void add(String key, Animation<TextureRegion> animation, HitMask[] masks) {
+        animations.put(key, animation);
+        hitMasks.put(animation, masks);
     }
 
     public Animation<TextureRegion> get(String key) {
         return animations.get(key);
     }
 
+    /** Every loaded animation, in no particular order. */
+    public Collection<Animation<TextureRegion>> getAnimations() {
+        return animations.values();
+    }
+
+    /** The mask of the frame {@code animation} shows at {@code stateTime}. */
+    public HitMask getHitMask(Animation<TextureRegion> animation, float stateTime) {
+        HitMask[] masks = hitMasks.get(animation);
+        return masks != null ? masks[animation.getKeyFrameIndex(stateTime)] : null;
+    }
+
     public void dispose() {
         for (Animation<TextureRegion> animation : animations.values()) {
             for (TextureRegion frame : animation.getKeyFrames()) {
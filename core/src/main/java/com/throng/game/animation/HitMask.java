@@ -0,0 +1,123 @@
+package com.throng.game.animation;
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 1-bit opacity mask of a sprite frame, built once from its pixmap. Each cell covers a square block of source
+ * pixels and is set when any pixel in the block is at least half opaque. Rows are packed into longs so overlap
+ * queries test 64 cells at a time.
+ * <p>
+ * Queries take normalized coordinates: (0, 0) is the top left of the frame and (1, 1) the bottom right, which
+ * makes them independent of the scale the frame is drawn at.
+ */
+public class HitMask {
+    private static final int ALPHA_THRESHOLD = 128;
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    private HitMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * height];
+    }
+
+    /** Builds the mask with one cell per {@code cellSize} x {@code cellSize} block of source pixels. */
+    public static HitMask fromPixmap(Pixmap pixmap, int cellSize) {
+        int sourceWidth = pixmap.getWidth();
+        int sourceHeight = pixmap.getHeight();
+        HitMask mask = new HitMask((sourceWidth + cellSize - 1) / cellSize, (sourceHeight + cellSize - 1) / cellSize);
+
+        Pixmap.Format format = pixmap.getFormat();
+        if (format != Pixmap.Format.RGBA8888 && format != Pixmap.Format.RGBA4444 && format != Pixmap.Format.Alpha
+                && format != Pixmap.Format.LuminanceAlpha) {
+            // No alpha channel, every pixel is opaque
+            for (int y = 0; y < mask.height; y++) {
+                for (int x = 0; x < mask.width; x++) {
+                    mask.set(x, y);
+                }
+            }
+            return mask;
+        }
+
+        if (format != Pixmap.Format.RGBA8888) {
+            for (int sy = 0; sy < sourceHeight; sy++) {
+                for (int sx = 0; sx < sourceWidth; sx++) {
+                    if ((pixmap.getPixel(sx, sy) & 0xff) >= ALPHA_THRESHOLD)
+                        mask.set(sx / cellSize, sy / cellSize);
+                }
+            }
+            return mask;
+        }
+
+        // Row by row straight from the pixel buffer: getPixel is a native call per pixel, far too slow for
+        // 900x900 frames
+        ByteBuffer pixels = pixmap.getPixels();
+        int position = pixels.position();
+        byte[] row = new byte[sourceWidth * 4];
+        for (int sy = 0; sy < sourceHeight; sy++) {
+            pixels.position(position + sy * row.length);
+            pixels.get(row);
+            int y = sy / cellSize;
+            for (int sx = 0; sx < sourceWidth; sx++) {
+                if ((row[sx * 4 + 3] & 0xff) >= ALPHA_THRESHOLD)
+                    mask.set(sx / cellSize, y);
+            }
+        }
+        pixels.position(position);
+        return mask;
+    }
+
+    private void set(int x, int y) {
+        bits[y * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+    }
+
+    public boolean isOpaque(float u, float v) {
+        int x = (int) (u * width);
+        int y = (int) (v * height);
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    /** True when any opaque cell lies in the normalized rectangle from (u0, v0) to (u1, v1). */
+    public boolean overlaps(float u0, float v0, float u1, float v1) {
+        int x0 = Math.max(0, (int) (u0 * width));
+        int y0 = Math.max(0, (int) (v0 * height));
+        int x1 = Math.min(width - 1, (int) (u1 * width));
+        int y1 = Math.min(height - 1, (int) (v1 * height));
+        if (x0 > x1 || y0 > y1)
+            return false;
+
+        int firstWord = x0 >>> 6;
+        int lastWord = x1 >>> 6;
+        long firstMask = -1L << (x0 & 63);
+        long lastMask = -1L >>> (63 - (x1 & 63));
+        for (int y = y0; y <= y1; y++) {
+            int rowStart = y * wordsPerRow;
+            for (int word = firstWord; word <= lastWord; word++) {
+                long mask = -1L;
+                if (word == firstWord)
+                    mask &= firstMask;
+                if (word == lastWord)
+                    mask &= lastMask;
+                if ((bits[rowStart + word] & mask) != 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -3,10 +3,13 @@ package com.throng.game.audio;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
 
 public class AudioManager {
     private static AudioManager instance;
     private Music backgroundMusic;
+    private String backgroundMusicPath;
     private Sound eatingSound;
     private Sound clickMenuSound;
     private Sound clickActionSound;
@@ -15,10 +18,19 @@ public class AudioManager {
 
     private AudioManager() {
         // Private constructor for singleton
-        eatingSound = Gdx.audio.newSound(Gdx.files.internal("sounds/eating-sound-effect.mp3"));
-        clickMenuSound = Gdx.audio.newSound(Gdx.files.internal("sounds/pop-clicking-effect.mp3"));
-        clickActionSound = Gdx.audio.newSound(Gdx.files.internal("sounds/tap-clicking-effect.mp3"));
+        long start = TimeUtils.nanoTime();
+        eatingSound = Gdx.audio.newSound(resolve("sounds/eating-sound-effect.mp3", ".wav"));
+        clickMenuSound = Gdx.audio.newSound(resolve("sounds/pop-clicking-effect.mp3", ".wav"));
+        clickActionSound = Gdx.audio.newSound(resolve("sounds/tap-clicking-effect.mp3", ".wav"));
+        Gdx.app.log("AudioManager", "Sound effects loaded in " + TimeUtils.nanosToMillis(TimeUtils.timeSinceNanos(start))
+                + " ms");
+    }
 
+    // Prefers the variant transcoded by the processAudio Gradle task, falling back to the original MP3.
+    private static FileHandle resolve(String filePath, String processedExtension) {
+        String processedPath = filePath.substring(0, filePath.lastIndexOf('.')) + processedExtension;
+        FileHandle processed = Gdx.files.internal(processedPath);
+        return processed.exists() ? processed : Gdx.files.internal(filePath);
     }
 
     public static AudioManager getInstance() {
@@ -29,12 +41,18 @@ public class AudioManager {
     }
 
     public void playBackgroundMusic(String filePath) {
+        if (backgroundMusic != null && filePath.equals(backgroundMusicPath)) {
+            // Same track as before (e.g. returning to a cached screen), just carry on playing it
+            backgroundMusic.play();
+            return;
+        }
         if (backgroundMusic != null) {
             backgroundMusic.stop();
             backgroundMusic.dispose();
         }
 
-        backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal(filePath));
+        backgroundMusic = Gdx.audio.newMusic(resolve(filePath, ".ogg"));
+        backgroundMusicPath = filePath;
         backgroundMusic.setLooping(true);
         backgroundMusic.setVolume(volume);
         backgroundMusic.play();
@@ -86,6 +104,7 @@ public class AudioManager {
         if (backgroundMusic != null) {
             backgroundMusic.dispose();
             backgroundMusic = null;
+            backgroundMusicPath = null;
         }
         if (eatingSound != null) {
             eatingSound.dispose();
@@ -0,0 +1,223 @@
+package com.throng.game.debug;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.StringBuilder;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.throng.game.render.TextureRegistry;
+
+/**
+ * Debug overlay toggled with F3: a rolling stacked chart of where each frame's time went, GL counters, texture
+ * count and heap activity. Everything is preallocated and the text is only re-laid out a few times a second, so
+ * it stays well under 0.1 ms per frame; while hidden the phase timers are no-ops and GL profiling is off.
+ */
+public class PerfOverlay implements Disposable {
+    public static final int UPDATE = 0;
+    public static final int COLLISION = 1;
+    public static final int BACKGROUND = 2;
+    public static final int FRUITS = 3;
+    public static final int STAGE = 4;
+    public static final int STAT_BARS = 5;
+    public static final int CROWD = 6;
+
+    private static final int PHASES = 7;
+    private static final String[] PHASE_NAMES = { "update ", "collision ", "background ", "fruits ", "stage ",
+            "bars ", "crowd " };
+    private static final Color[] PHASE_COLORS = { Color.SKY, Color.ORANGE, Color.FOREST, Color.RED, Color.GOLD,
+            Color.VIOLET, Color.CORAL };
+    private static final int HISTORY = 120;
+    private static final int TEXT_REFRESH_FRAMES = 15;
+    private static final float PIXELS_PER_MS = 4f;
+    private static final float BAR_WIDTH = 2f;
+    private static final float MARGIN = 10f;
+    private static final float CHART_HEIGHT = 100f;
+    // A drop in used heap bigger than this between two frames is counted as a collection
+    private static final long GC_DROP_BYTES = 512 * 1024;
+
+    private final float[][] history = new float[PHASES][HISTORY];
+    private final float[] frameHistory = new float[HISTORY];
+    private final long[] phaseStart = new long[PHASES];
+    private final long[] phaseNanos = new long[PHASES];
+    private int head;
+
+    private final GLProfiler profiler;
+    private final Texture whiteTexture;
+    private final TextureRegion white;
+    private final BitmapFont font;
+    private final BitmapFontCache textCache;
+    private final StringBuilder text = new StringBuilder(256);
+    private final Matrix4 projection = new Matrix4();
+    private final Color previousColor = new Color();
+
+    private boolean visible;
+    private int framesUntilText;
+    private long lastHeap;
+    private int gcCount;
+    private float overlayMs;
+
+    public PerfOverlay() {
+        profiler = new GLProfiler(Gdx.graphics);
+
+        Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fill();
+        whiteTexture = TextureRegistry.get().fromPixmap(pixmap, TextureRegistry.Priority.UI);
+        white = new TextureRegion(whiteTexture);
+
+        font = new BitmapFont();
+        textCache = font.newFontCache();
+    }
+
+    public void toggle() {
+        visible = !visible;
+        if (visible) {
+            profiler.enable();
+            profiler.reset();
+            framesUntilText = 0;
+        } else {
+            profiler.disable();
+        }
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void begin(int phase) {
+        if (visible)
+            phaseStart[phase] = TimeUtils.nanoTime();
+    }
+
+    public void end(int phase) {
+        if (visible)
+            phaseNanos[phase] += TimeUtils.nanoTime() - phaseStart[phase];
+    }
+
+    /** Call last in the screen's render: records the frame and draws the overlay on top of it. */
+    public void render(Batch batch) {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3))
+            toggle();
+        if (!visible)
+            return;
+
+        long start = TimeUtils.nanoTime();
+        // Read the counters before drawing, so the overlay's own calls are not part of them
+        int drawCalls = profiler.getDrawCalls();
+        int textureBindings = profiler.getTextureBindings();
+        int shaderSwitches = profiler.getShaderSwitches();
+
+        head = (head + 1) % HISTORY;
+        for (int phase = 0; phase < PHASES; phase++) {
+            history[phase][head] = phaseNanos[phase] / 1000000f;
+            phaseNanos[phase] = 0;
+        }
+        frameHistory[head] = Gdx.graphics.getDeltaTime() * 1000f;
+
+        long heap = Gdx.app.getJavaHeap();
+        if (heap < lastHeap - GC_DROP_BYTES)
+            gcCount++;
+        lastHeap = heap;
+
+        if (--framesUntilText <= 0) {
+            framesUntilText = TEXT_REFRESH_FRAMES;
+            updateText(drawCalls, textureBindings, shaderSwitches, heap);
+        }
+
+        projection.setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.setProjectionMatrix(projection);
+        previousColor.set(batch.getColor());
+        batch.begin();
+        drawChart(batch);
+        batch.setColor(previousColor);
+        textCache.draw(batch);
+        batch.end();
+        profiler.reset();
+
+        overlayMs = (TimeUtils.nanoTime() - start) / 1000000f;
+    }
+
+    private void drawChart(Batch batch) {
+        float top = Gdx.graphics.getHeight() - MARGIN;
+        float bottom = top - CHART_HEIGHT;
+        float left = Gdx.graphics.getWidth() - MARGIN - HISTORY * BAR_WIDTH;
+
+        batch.setColor(0f, 0f, 0f, 0.6f);
+        batch.draw(white, left, bottom, HISTORY * BAR_WIDTH, CHART_HEIGHT);
+
+        // Oldest frame on the left, every bar stacked from the phases in order
+        for (int i = 0; i < HISTORY; i++) {
+            int index = (head + 1 + i) % HISTORY;
+            float x = left + i * BAR_WIDTH;
+            float y = bottom;
+            for (int phase = 0; phase < PHASES; phase++) {
+                float height = Math.min(history[phase][index] * PIXELS_PER_MS, bottom + CHART_HEIGHT - y);
+                if (height <= 0)
+                    continue;
+                batch.setColor(PHASE_COLORS[phase]);
+                batch.draw(white, x, y, BAR_WIDTH, height);
+                y += height;
+            }
+            // Whole frame time as a thin marker, the gap below it is time outside the measured phases
+            float frameY = Math.min(bottom + frameHistory[index] * PIXELS_PER_MS, bottom + CHART_HEIGHT - 1);
+            batch.setColor(Color.WHITE);
+            batch.draw(white, x, frameY, BAR_WIDTH, 1);
+        }
+
+        // 16.7 ms line for 60 fps
+        batch.setColor(1f, 1f, 1f, 0.4f);
+        batch.draw(white, left, bottom + 16.7f * PIXELS_PER_MS, HISTORY * BAR_WIDTH, 1);
+    }
+
+    private void updateText(int drawCalls, int textureBindings, int shaderSwitches, long heap) {
+        text.setLength(0);
+        text.append("frame ");
+        appendMs(frameHistory[head]);
+        text.append(" ms, overlay ");
+        appendMs(overlayMs);
+        text.append(" ms\n");
+        for (int phase = 0; phase < PHASES; phase++) {
+            text.append(PHASE_NAMES[phase]);
+            appendMs(history[phase][head]);
+            text.append(phase == PHASES - 1 ? " ms\n" : "  ");
+        }
+        text.append("draw calls ").append(drawCalls)
+                .append("  texture binds ").append(textureBindings)
+                .append("  shader switches ").append(shaderSwitches).append('\n');
+        TextureRegistry textures = TextureRegistry.get();
+        text.append("managed textures ").append(Texture.getNumManagedTextures())
+                .append("  texture memory ").append(textures.getUsedBytes() / (1024 * 1024))
+                .append(" / ").append(textures.getBudgetBytes() / (1024 * 1024)).append(" MB\n")
+                .append("heap ").append(heap / (1024 * 1024))
+                .append(" MB  native ").append(Gdx.app.getNativeHeap() / (1024 * 1024))
+                .append(" MB  gc ").append(gcCount);
+
+        float x = Gdx.graphics.getWidth() - MARGIN - HISTORY * BAR_WIDTH;
+        float y = Gdx.graphics.getHeight() - MARGIN - CHART_HEIGHT - 4;
+        textCache.setText(text, x - 300, y, 300 + HISTORY * BAR_WIDTH, Align.right, false);
+    }
+
+    // Two decimals without going through Float.toString
+    private void appendMs(float ms) {
+        int hundredths = Math.round(ms * 100f);
+        text.append(hundredths / 100).append('.').append(hundredths % 100, 2);
+    }
+
+    @Override
+    public void dispose() {
+        if (visible)
+            profiler.disable();
+        whiteTexture.dispose();
+        font.dispose();
+    }
+}
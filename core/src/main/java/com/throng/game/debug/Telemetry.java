@@ -0,0 +1,55 @@
+package com.throng.game.debug;
+
+import com.badlogic.gdx.Screen;
+
+/**
+ * Hooks around the game loop for platform profilers. Every {@code begin} returns a token for the matching
+ * {@code end}; this default implementation does nothing and returns {@code null}, so unless a platform
+ * installs its own (the desktop launcher installs one that emits JFR events) the hooks cost nothing.
+ */
+public class Telemetry {
+    private static Telemetry instance = new Telemetry();
+
+    public static Telemetry get() {
+        return instance;
+    }
+
+    public static void install(Telemetry telemetry) {
+        instance = telemetry;
+    }
+
+    public Object beginFrame() {
+        return null;
+    }
+
+    public void endFrame(Object frame, Screen screen) {
+    }
+
+    public Object beginTick() {
+        return null;
+    }
+
+    public void endTick(Object tick, int petCount) {
+    }
+
+    public Object beginCollision() {
+        return null;
+    }
+
+    public void endCollision(Object collision, int petCount, int fruitCount, int eaten) {
+    }
+
+    public Object beginAssetLoad() {
+        return null;
+    }
+
+    public void endAssetLoad(Object load, String asset, String type) {
+    }
+
+    public Object beginScreenTransition() {
+        return null;
+    }
+
+    public void endScreenTransition(Object transition, Screen from, Screen to) {
+    }
+}
@@ -6,17 +6,26 @@ import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.utils.DragListener;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.throng.game.animation.HitMask;
+import com.throng.game.world.Simulation;
 
+/**
+ * Draws one pet from the simulation's current snapshot and turns drags into commands for it, so it works the same
+ * whether the simulation runs inline or on its own thread.
+ */
 public class DraggablePetActor extends Actor {
-    private final Pet pet;
-    private final float scale = 0.3f;
+    private final Simulation simulation;
+    private final int petIndex;
+    private final float scale = Pet.DRAW_SCALE;
     private boolean dragging = false;
     private float dragOffsetX, dragOffsetY;
     private boolean facingLeft = false;
 
-    public DraggablePetActor(Pet pet) {
-        this.pet = pet;
+    public DraggablePetActor(Simulation simulation, int petIndex) {
+        this.simulation = simulation;
+        this.petIndex = petIndex;
 
+        PetSnapshot pet = pet();
         Vector2 pos = pet.getPosition();
         float width = pet.getCurrentFrame().getRegionWidth() * scale;
         float height = pet.getCurrentFrame().getRegionHeight() * scale;
@@ -46,8 +55,7 @@ public class DraggablePetActor extends Actor {
                 newY = Math.max(0, Math.min(stageHeight - getHeight(), newY));
 
                 setPosition(newX, newY);
-                pet.setPosition(new Vector2(newX + getWidth() / 2f, newY + getHeight() / 2f));
-                pet.suppressAutoBehavior = true;
+                simulation.drag(petIndex, newX + getWidth() / 2f, newY + getHeight() / 2f);
             }
 
             @Override
@@ -61,15 +69,29 @@ public class DraggablePetActor extends Actor {
     public void act(float delta) {
         super.act(delta);
         if (!dragging) {
+            PetSnapshot pet = pet();
             Vector2 pos = pet.getPosition();
             setPosition(pos.x - getWidth() / 2f, pos.y - getHeight() / 2f);
             setFacingLeft(pet.isFacingLeft());
         }
     }
 
+    // Only the opaque pixels of the current frame pick the pet, not its whole rectangle
+    @Override
+    public Actor hit(float x, float y, boolean touchable) {
+        Actor hit = super.hit(x, y, touchable);
+        if (hit == null)
+            return null;
+        HitMask mask = pet().getCurrentHitMask();
+        if (mask == null)
+            return hit;
+        float u = x / getWidth();
+        return mask.isOpaque(facingLeft ? 1f - u : u, 1f - y / getHeight()) ? hit : null;
+    }
+
     @Override
     public void draw(Batch batch, float parentAlpha) {
-        TextureRegion frame = pet.getCurrentFrame();
+        TextureRegion frame = pet().getCurrentFrame();
         if (facingLeft) {
             frame.flip(true, false);
         }
@@ -82,6 +104,10 @@ public class DraggablePetActor extends Actor {
         }
     }
 
+    private PetSnapshot pet() {
+        return simulation.getSnapshot().getPets().get(petIndex);
+    }
+
     public void setFacingLeft(boolean facingLeft) {
         this.facingLeft = facingLeft;
     }
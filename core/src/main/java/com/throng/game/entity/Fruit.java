@@ -1,9 +1,11 @@
 package com.throng.game.entity;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Rectangle;
+import com.throng.game.render.TextureRegistry;
 
 public class Fruit {
     private static final float SIZE = 64f;
@@ -12,17 +14,31 @@ public class Fruit {
     private static final float SCREEN_HEIGHT = 720f;
     private static final float PADDING = 100f;
     private final Vector2 position;
+    private final Rectangle bounds;
     private final Texture texture;
     private final TextureRegion textureRegion;
-    private Runnable onTouchCallback;
+    private final boolean ownsTexture;
 
     public Fruit(Vector2 position) {
+        this(position, new TextureRegion(TextureRegistry.get().load(Gdx.files.internal("apple/apple_default.png"),
+                TextureRegistry.Priority.LAZY)), true);
+    }
+
+    // Shares a region owned by the caller instead of loading a texture per fruit
+    public Fruit(Vector2 position, TextureRegion textureRegion) {
+        this(position, textureRegion, false);
+    }
+
+    private Fruit(Vector2 position, TextureRegion textureRegion, boolean ownsTexture) {
         // screen bounds with padding
         float x = Math.max(SIZE / 2 + PADDING, Math.min(SCREEN_WIDTH - SIZE / 2 - PADDING, position.x));
         float y = Math.max(SIZE / 2 + PADDING, Math.min(SCREEN_HEIGHT - SIZE / 2 - PADDING, position.y));
         this.position = new Vector2(x, y);
-        this.texture = new Texture("apple/apple_default.png");
-        this.textureRegion = new TextureRegion(texture);
+        // Fruit never moves, so the collision box is built once
+        this.bounds = new Rectangle(x - COLLISION_SIZE / 2, y - COLLISION_SIZE / 2, COLLISION_SIZE, COLLISION_SIZE);
+        this.texture = textureRegion.getTexture();
+        this.textureRegion = textureRegion;
+        this.ownsTexture = ownsTexture;
     }
 
     public Vector2 getPosition() {
@@ -34,8 +50,7 @@ public class Fruit {
     }
 
     public Rectangle getBounds() {
-        return new Rectangle(position.x - COLLISION_SIZE / 2, position.y - COLLISION_SIZE / 2, COLLISION_SIZE,
-                COLLISION_SIZE);
+        return bounds;
     }
 
     public TextureRegion getFrame() {
@@ -47,16 +62,8 @@ public class Fruit {
     }
 
     public void dispose() {
-        texture.dispose();
-    }
-
-    public void setOnTouch(Runnable callback) {
-        this.onTouchCallback = callback;
-    }
-
-    public void touch() {
-        if (onTouchCallback != null) {
-            onTouchCallback.run();
+        if (ownsTexture) {
+            texture.dispose();
         }
     }
 }
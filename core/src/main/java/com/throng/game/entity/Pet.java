@@ -1,10 +1,12 @@
 package com.throng.game.entity;
 
+import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.throng.game.animation.AnimationManager;
-import com.throng.game.ui.PetStatsUI;
+import com.throng.game.animation.HitMask;
 
 public class Pet {
 
@@ -12,26 +14,62 @@ public class Pet {
         IDLE, WALKING, BLINKING, SLEEPING, EATING, PLAYING
     }
 
+    /** How much animation work a pet gets this step, see {@link com.throng.game.world.CrowdLod}. */
+    public enum Detail {
+        // Every frame, as drawn
+        FULL,
+        // Each frame held twice as long
+        REDUCED,
+        // Out of view, no frame selection
+        HIDDEN
+    }
+
     private final Vector2 position;
     private final Vector2 targetPosition;
+    // Scratch objects so the per-frame paths don't allocate
+    private final Vector2 direction = new Vector2();
+    private final Rectangle bounds = new Rectangle();
+    static final TextureRegion EMPTY_FRAME = new TextureRegion();
     private boolean facingLeft = false;
 
     private PetState currentState;
     private PetState previousState;
 
     private float stateTime;
-    private float stateTimer;
-    private float stateDuration;
 
-    private float hunger, happiness, energy;
+    // Hunger, happiness, energy and the timed action, in the pet's own store until a world takes it in
+    private PetStats stats;
+    private int slot;
     private static final float MAX_STAT = 100f;
     private static final float BASE_DECAY_RATE = 1f;
+    private static final float PLAY_HUNGER_DECAY_RATE = BASE_DECAY_RATE * 15f / 5f;
+    private static final float PLAY_ENERGY_DECAY_RATE = BASE_DECAY_RATE * 20f / 5f;
+
+    // Time an out of view pet has not been updated for, made up on its next turn
+    private float deferred;
+
+    // Only kept for pets someone charts, see recordHistory
+    private StatHistory history;
 
     private boolean isWalking;
     private static final float WALK_SPEED = 100f;
+    // Rates per second, about 0.01 and 0.002 per frame at 60 fps
+    private static final float BLINK_CHANCE_PER_SECOND = 0.6f;
+    private static final float WALK_CHANCE_PER_SECOND = 0.12f;
+    // Frames are drawn at this fraction of their pixel size
+    public static final float DRAW_SCALE = 0.3f;
 
     private final AnimationManager animationManager;
-    private PetStatObserver statsObserver;
+    private final boolean ownsAnimationManager;
+    private PetState animationState;
+    private Animation<TextureRegion> animation;
+
+    // The frame snapshots show, only selected again when the frame number changes
+    private Detail detail = Detail.FULL;
+    private Animation<TextureRegion> frameAnimation;
+    private int frameNumber = -1;
+    private int frameIndex;
+    private HitMask frameMask;
 
     private static final float MANUAL_MOVE_SPEED = 200f;
     private boolean manualControl = false;
@@ -39,32 +77,77 @@ public class Pet {
 
     public boolean suppressAutoBehavior = false;
 
-    // Timed action tracking
-    private float startHunger, startHappiness, startEnergy;
-    private float hungerGain, happinessGain, energyGain;
+    public Pet(Vector2 startPos) {
+        this(startPos, new AnimationManager(), true);
+    }
+
+    // For crowds: every pet draws the same frames, so they can share one AnimationManager owned by the caller
+    public Pet(Vector2 startPos, AnimationManager animationManager) {
+        this(startPos, animationManager, false);
+    }
 
-    public Pet(Vector2 startPos, PetStatObserver statsObserver) {
+    private Pet(Vector2 startPos, AnimationManager animationManager, boolean ownsAnimationManager) {
         this.position = new Vector2(startPos);
         this.targetPosition = new Vector2(startPos);
-        this.statsObserver = statsObserver;
 
-        this.animationManager = new AnimationManager();
+        this.animationManager = animationManager;
+        this.ownsAnimationManager = ownsAnimationManager;
         this.currentState = PetState.IDLE;
         this.previousState = PetState.IDLE;
-        this.hunger = MAX_STAT;
-        this.happiness = MAX_STAT;
-        this.energy = MAX_STAT;
+        this.stats = new PetStats(1);
+        this.slot = stats.add(MAX_STAT, MAX_STAT, MAX_STAT);
+        stats.setDecay(slot, BASE_DECAY_RATE, BASE_DECAY_RATE, BASE_DECAY_RATE);
         this.stateTime = 0;
-        this.stateTimer = 0;
-        this.stateDuration = 0;
+        selectFrame();
+    }
+
+    /**
+     * Moves the pet's stats into a crowd's store, whose owner then steps them with {@link PetStats#step}, and
+     * returns the slot they are in there.
+     */
+    public int moveStats(PetStats crowd) {
+        slot = crowd.add(stats, slot);
+        stats = crowd;
+        return slot;
+    }
+
+    /** Starts keeping the pet's stat history from now on, if it does not already, and returns it. */
+    public StatHistory recordHistory() {
+        if (history == null)
+            history = new StatHistory();
+        return history;
     }
 
+    /** Null unless {@link #recordHistory} was called. */
+    public StatHistory getHistory() {
+        return history;
+    }
+
+    /** Steps the pet on its own, stats included. */
     public void update(float delta, float screenWidth, float screenHeight) {
+        stepStats(delta);
+        update(delta, screenWidth, screenHeight, Detail.FULL, true);
+    }
+
+    /**
+     * Steps the pet with the detail it is drawn at, for a world that has already stepped the stats of all its pets.
+     * When it is not {@code due}, which only happens out of view, nothing is updated and the time is made up in one
+     * go on its next turn.
+     */
+    public void update(float delta, float screenWidth, float screenHeight, Detail detail, boolean due) {
+        this.detail = detail;
+        if (!due) {
+            deferred += delta;
+            return;
+        }
+        delta += deferred;
+        deferred = 0;
         stateTime += delta;
-        stateTimer += delta;
+        if (history != null)
+            history.record(delta, getHunger(), getHappiness(), getEnergy());
 
-        handleTimedActions();
-        decayStats(delta);
+        if (isInTimedAction() && stats.isFinished(slot))
+            endTimedAction();
 
         if (!manualControl && !isInTimedAction()) {
             updateBehavior(screenWidth, screenHeight, delta);
@@ -73,78 +156,67 @@ public class Pet {
         }
 
         manualControl = false;
-
-        if (statsObserver != null) {
-            statsObserver.updateBars(hunger, happiness, energy);
-        }
     }
 
-    private void handleTimedActions() {
-        if (!isInTimedAction())
-            return;
-
-        float t = Math.min(stateTimer / stateDuration, 1f);
+    /**
+     * The per pet form of {@link PetStats#step}, branching on the state instead of reading the rates off the slot.
+     * The timed action itself ends in the update that follows.
+     */
+    public void stepStats(float delta) {
+        PetStats s = stats;
+        int i = slot;
+        s.timer[i] += delta;
 
         switch (currentState) {
             case EATING:
-                hunger = startHunger + hungerGain * t;
-                happiness = startHappiness + happinessGain * t;
-                energy = startEnergy + energyGain * t;
+                float t = Math.min(s.timer[i] / s.duration[i], 1f);
+                s.hunger[i] = s.hungerStart[i] + s.hungerGain[i] * t;
+                s.happiness[i] = s.happinessStart[i] + s.happinessGain[i] * t;
+                s.energy[i] = s.energyStart[i] + s.energyGain[i] * t;
                 break;
-
             case SLEEPING:
-                energy = startEnergy + energyGain * t;
-                // hunger & happiness freeze — handled in decayStats()
+                // hunger & happiness frozen
+                t = Math.min(s.timer[i] / s.duration[i], 1f);
+                s.energy[i] = s.energyStart[i] + s.energyGain[i] * t;
                 break;
-
             case PLAYING:
-                happiness = startHappiness + happinessGain * t;
-                // energy & hunger decay faster — handled in decayStats()
+                // faster decay
+                s.hunger[i] = Math.max(s.hunger[i] - PLAY_HUNGER_DECAY_RATE * delta, 0);
+                t = Math.min(s.timer[i] / s.duration[i], 1f);
+                s.happiness[i] = s.happinessStart[i] + s.happinessGain[i] * t;
+                s.energy[i] = Math.max(s.energy[i] - PLAY_ENERGY_DECAY_RATE * delta, 0);
+                break;
+            default:
+                s.hunger[i] = Math.max(s.hunger[i] - BASE_DECAY_RATE * delta, 0);
+                s.happiness[i] = Math.max(s.happiness[i] - BASE_DECAY_RATE * delta, 0);
+                s.energy[i] = Math.max(s.energy[i] - BASE_DECAY_RATE * delta, 0);
                 break;
         }
+    }
 
-        if (stateTimer >= stateDuration) {
-            currentState = PetState.IDLE;
-            stateTime = 0;
-            stateTimer = 0;
-            stateDuration = 0;
-        }
+    /** Back to idle and base decay; a world calls this for every action its stats step saw run out. */
+    public void endTimedAction() {
+        currentState = PetState.IDLE;
+        stateTime = 0;
+        stats.end(slot);
+        stats.setDecay(slot, BASE_DECAY_RATE, BASE_DECAY_RATE, BASE_DECAY_RATE);
     }
 
     private boolean isInTimedAction() {
         return currentState == PetState.SLEEPING || currentState == PetState.EATING || currentState == PetState.PLAYING;
     }
 
-    private void decayStats(float delta) {
-        switch (currentState) {
-            case SLEEPING:
-                // hunger & happiness frozen
-                break;
-            case PLAYING:
-                // faster decay
-                hunger = Math.max(hunger - (BASE_DECAY_RATE * 15f / 5f) * delta, 0);
-                energy = Math.max(energy - (BASE_DECAY_RATE * 20f / 5f) * delta, 0);
-                break;
-            case EATING:
-                // freeze decay during eating
-                break;
-            default:
-                hunger = Math.max(hunger - BASE_DECAY_RATE * delta, 0);
-                happiness = Math.max(happiness - BASE_DECAY_RATE * delta, 0);
-                energy = Math.max(energy - BASE_DECAY_RATE * delta, 0);
-                break;
-        }
-    }
-
     private void updateBehavior(float screenWidth, float screenHeight, float delta) {
         previousState = currentState;
         if (suppressAutoBehavior)
             return;
 
         if (currentState == PetState.IDLE || currentState == PetState.BLINKING) {
-            if (Math.random() < 0.01)
+            // Chances of it happening at least once in delta at the rate per second, so pets behave the same at any
+            // frame rate and a time-sliced out of view pet's long delta does not make it a certainty
+            if (MathUtils.random() < chance(BLINK_CHANCE_PER_SECOND, delta))
                 toggleBlink();
-            if (Math.random() < 0.002 && !isWalking)
+            if (MathUtils.random() < chance(WALK_CHANCE_PER_SECOND, delta) && !isWalking)
                 startRandomWalk(screenWidth, screenHeight);
         }
 
@@ -152,14 +224,21 @@ public class Pet {
             updateWalking(delta);
     }
 
+    private static float chance(float perSecond, float delta) {
+        return 1f - (float) Math.exp(-perSecond * delta);
+    }
+
     private void toggleBlink() {
         currentState = (currentState == PetState.IDLE) ? PetState.BLINKING : PetState.IDLE;
         stateTime = 0;
     }
 
     private void updateWalking(float delta) {
-        Vector2 direction = new Vector2(targetPosition).sub(position).nor();
-        position.mulAdd(direction, WALK_SPEED * delta);
+        direction.set(targetPosition).sub(position);
+        // Never past the target, which a time-sliced step of an out of view pet could otherwise overshoot
+        float distance = direction.len();
+        direction.nor();
+        position.mulAdd(direction, Math.min(WALK_SPEED * delta, distance));
         facingLeft = direction.x < 0;
 
         if (position.dst(targetPosition) < 5f) {
@@ -173,8 +252,8 @@ public class Pet {
         float paddingX = screenWidth * 0.2f;
         float paddingY = screenHeight * 0.2f;
 
-        targetPosition.x = paddingX + (float) Math.random() * (screenWidth - 2 * paddingX);
-        targetPosition.y = paddingY + (float) Math.random() * (screenHeight - 2 * paddingY);
+        targetPosition.x = paddingX + MathUtils.random() * (screenWidth - 2 * paddingX);
+        targetPosition.y = paddingY + MathUtils.random() * (screenHeight - 2 * paddingY);
 
         isWalking = true;
         currentState = PetState.WALKING;
@@ -185,62 +264,45 @@ public class Pet {
         if (isInTimedAction())
             return;
 
-        startHappiness = happiness;
-        startEnergy = energy;
-
-        happinessGain = Math.min(25, MAX_STAT - happiness);
-        energyGain = 0; // real energy loss handled in decay
+        // Energy and hunger keep decaying, faster
+        stats.begin(slot, 20f, false, true, false);
+        stats.setGain(slot, 0, Math.min(25, MAX_STAT - getHappiness()), 0);
+        stats.setDecay(slot, PLAY_HUNGER_DECAY_RATE, 0, PLAY_ENERGY_DECAY_RATE);
 
         currentState = PetState.PLAYING;
         stateTime = 0;
-        stateTimer = 0;
-        stateDuration = 20f;
     }
 
     public void sleep() {
         if (isInTimedAction())
             return;
 
-        startEnergy = energy;
-        startHunger = hunger;
-        startHappiness = happiness;
-
-        energyGain = Math.min(100, MAX_STAT - energy);
+        // Hunger and happiness frozen
+        stats.begin(slot, 60f, false, false, true);
+        stats.setGain(slot, 0, 0, Math.min(100, MAX_STAT - getEnergy()));
+        stats.setDecay(slot, 0, 0, 0);
 
         currentState = PetState.SLEEPING;
         stateTime = 0;
-        stateTimer = 0;
-        stateDuration = 60f;
     }
 
     public void eat() {
         if (isInTimedAction())
             return;
 
-        startHunger = hunger;
-        startEnergy = energy;
-        startHappiness = happiness;
-
-        hungerGain = Math.min(200, MAX_STAT - hunger);
-        happinessGain = Math.min(5, MAX_STAT - happiness);
-        energyGain = Math.min(5, MAX_STAT - energy);
+        stats.begin(slot, 0.2f, true, true, true);
+        stats.setGain(slot, Math.min(200, MAX_STAT - getHunger()), Math.min(5, MAX_STAT - getHappiness()),
+                Math.min(5, MAX_STAT - getEnergy()));
+        stats.setDecay(slot, 0, 0, 0);
 
         currentState = PetState.EATING;
         stateTime = 0;
-        stateTimer = 0;
-        stateDuration = 0.2f;
     }
 
-    private void cancelTimedAction() {
-        stateDuration = 0;
-        stateTimer = 0;
-        stateTime = 0;
-        currentState = PetState.IDLE;
-    }
 
     public void manualMove(float dx, float dy, float screenWidth, float screenHeight, float delta) {
         if (isInTimedAction())
-            cancelTimedAction();
+            endTimedAction();
 
         manualControl = true;
         moving = (dx != 0 || dy != 0);
@@ -255,8 +317,8 @@ public class Pet {
             float spriteWidth = animationManager.get("IDLE").getKeyFrame(0).getRegionWidth();
             float spriteHeight = animationManager.get("IDLE").getKeyFrame(0).getRegionHeight();
 
-            float halfW = spriteWidth * 0.3f / 2f;
-            float halfH = spriteHeight * 0.3f / 2f;
+            float halfW = spriteWidth * DRAW_SCALE / 2f;
+            float halfH = spriteHeight * DRAW_SCALE / 2f;
 
             newX = Math.max(halfW, Math.min(screenWidth - halfW, newX));
             newY = Math.max(halfH, Math.min(screenHeight - halfH, newY));
@@ -268,30 +330,133 @@ public class Pet {
     }
 
     public void setPosition(Vector2 newPosition) {
-        position.set(newPosition);
-        targetPosition.set(newPosition);
+        setPosition(newPosition.x, newPosition.y);
     }
 
-    public TextureRegion getCurrentFrame() {
-        if (animationManager.get(currentState.toString()) != null) {
-            return animationManager.get(currentState.toString()).getKeyFrame(stateTime);
-        } else if (animationManager.get("IDLE") != null) {
-            return animationManager.get("IDLE").getKeyFrame(stateTime);
-        } else {
-            return new TextureRegion(); // fallback
+    public void setPosition(float x, float y) {
+        position.set(x, y);
+        targetPosition.set(x, y);
+    }
+
+    Animation<TextureRegion> getCurrentAnimation() {
+        if (currentState != animationState) {
+            Animation<TextureRegion> found = animationManager.get(currentState.toString());
+            if (found == null)
+                found = animationManager.get("IDLE");
+            // Not cached while the animations are missing, they may still be loading
+            if (found == null)
+                return null;
+            animation = found;
+            animationState = currentState;
         }
+        return animation;
+    }
+
+    /**
+     * Picks the frame snapshots show, at the detail of the last update. Hidden pets keep their last frame and pick
+     * again once back in view; the others only look their frame up when its number changes.
+     */
+    void selectFrame() {
+        if (detail == Detail.HIDDEN) {
+            frameNumber = -1;
+            return;
+        }
+        Animation<TextureRegion> current = getCurrentAnimation();
+        if (current == null) {
+            frameAnimation = null;
+            frameIndex = 0;
+            frameMask = null;
+            return;
+        }
+        int number = (int) (stateTime / current.getFrameDuration()) / stride();
+        if (current == frameAnimation && number == frameNumber)
+            return;
+        frameAnimation = current;
+        frameNumber = number;
+        frameIndex = current.getKeyFrameIndex(stateTime);
+        frameMask = animationManager.getHitMask(current, stateTime);
+    }
+
+    private int stride() {
+        return detail == Detail.REDUCED ? 2 : 1;
+    }
+
+    Animation<TextureRegion> getFrameAnimation() {
+        return frameAnimation;
+    }
+
+    int getFrameIndex() {
+        return frameIndex;
+    }
+
+    HitMask getFrameHitMask() {
+        return frameMask;
+    }
+
+    public TextureRegion getCurrentFrame() {
+        Animation<TextureRegion> animation = getCurrentAnimation();
+        return animation != null ? animation.getKeyFrame(stateTime) : EMPTY_FRAME; // fallback
+    }
+
+    /** Seconds until the selected frame changes, which for a reduced detail pet is every other frame. */
+    public float getTimeToNextFrame() {
+        if (frameAnimation == null || frameNumber < 0)
+            return Float.MAX_VALUE;
+        float shownFor = frameAnimation.getFrameDuration() * stride();
+        return shownFor - stateTime % shownFor;
+    }
+
+    public HitMask getCurrentHitMask() {
+        Animation<TextureRegion> animation = getCurrentAnimation();
+        return animation != null ? animationManager.getHitMask(animation, stateTime) : null;
+    }
+
+    /** Height of the sprite as drawn, in world units. */
+    public float getDrawnHeight() {
+        Animation<TextureRegion> current = getCurrentAnimation();
+        return current != null ? current.getKeyFrame(0).getRegionHeight() * DRAW_SCALE : 0;
     }
 
+    // The drawn sprite rectangle. It is reused, so only valid until the next call
     public Rectangle getBounds() {
-        float width = getCurrentFrame().getRegionWidth() * 0.3f;
-        float height = getCurrentFrame().getRegionHeight() * 0.3f;
-        float collisionWidth = width / 3f;
-        float collisionHeight = height / 3f;
-        return new Rectangle(
-                position.x - collisionWidth / 2,
-                position.y - collisionHeight / 2,
-                collisionWidth,
-                collisionHeight);
+        TextureRegion frame = getCurrentFrame();
+        float width = frame.getRegionWidth() * DRAW_SCALE;
+        float height = frame.getRegionHeight() * DRAW_SCALE;
+        return bounds.set(position.x - width / 2, position.y - height / 2, width, height);
+    }
+
+    /** Pixel-accurate: the sprite rectangle first, then the opaque cells of the current frame inside it. */
+    public boolean overlaps(Rectangle other) {
+        Rectangle sprite = getBounds();
+        if (!sprite.overlaps(other))
+            return false;
+        HitMask mask = getCurrentHitMask();
+        if (mask == null)
+            return true;
+
+        float top = sprite.y + sprite.height;
+        float u0 = (Math.max(other.x, sprite.x) - sprite.x) / sprite.width;
+        float u1 = (Math.min(other.x + other.width, sprite.x + sprite.width) - sprite.x) / sprite.width;
+        float v0 = (top - Math.min(other.y + other.height, top)) / sprite.height;
+        float v1 = (top - Math.max(other.y, sprite.y)) / sprite.height;
+        if (facingLeft) {
+            float flipped = 1f - u1;
+            u1 = 1f - u0;
+            u0 = flipped;
+        }
+        return mask.overlaps(u0, v0, u1, v1);
+    }
+
+    /** Pixel-accurate point test in world coordinates. */
+    public boolean hit(float x, float y) {
+        Rectangle sprite = getBounds();
+        if (!sprite.contains(x, y))
+            return false;
+        HitMask mask = getCurrentHitMask();
+        if (mask == null)
+            return true;
+        float u = (x - sprite.x) / sprite.width;
+        return mask.isOpaque(facingLeft ? 1f - u : u, (sprite.y + sprite.height - y) / sprite.height);
     }
 
     public Vector2 getPosition() {
@@ -299,11 +464,25 @@ public class Pet {
     }
 
     public void dispose() {
-        animationManager.dispose();
+        if (ownsAnimationManager) {
+            animationManager.dispose();
+        }
+    }
+
+    public float getHunger() {
+        return stats.hunger[slot];
+    }
+
+    public float getHappiness() {
+        return stats.happiness[slot];
+    }
+
+    public float getEnergy() {
+        return stats.energy[slot];
     }
 
-    public void setStatsObserver(PetStatsUI statsObserver) {
-        this.statsObserver = statsObserver;
+    public PetState getState() {
+        return currentState;
     }
 
     public boolean isFacingLeft() {
@@ -0,0 +1,86 @@
+package com.throng.game.entity;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * Group for the pet actors that resolves touches through a uniform grid of their bounds instead of asking every
+ * child, so a touch or mouse move costs the same with ten pets or a thousand. The grid is rebuilt after each
+ * {@link #act(float)}, from the positions that are about to be drawn. Children are bucketed in child order, so
+ * the last match in a cell is the topmost actor, the same one {@link Group#hit} would return.
+ */
+public class PetLayer extends Group {
+    private static final float CELL_SIZE = 128f;
+
+    // Cell lists are cleared rather than removed between rebuilds, so a steady crowd does not allocate
+    private final IntMap<Array<Actor>> cells = new IntMap<>();
+    private final Vector2 local = new Vector2();
+
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        for (Array<Actor> cell : cells.values()) {
+            cell.clear();
+        }
+        SnapshotArray<Actor> children = getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            int minX = cell(child.getX());
+            int maxX = cell(child.getX() + child.getWidth());
+            int minY = cell(child.getY());
+            int maxY = cell(child.getY() + child.getHeight());
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cy = minY; cy <= maxY; cy++) {
+                    int key = key(cx, cy);
+                    Array<Actor> cell = cells.get(key);
+                    if (cell == null) {
+                        cell = new Array<>(false, 4, Actor.class);
+                        cells.put(key, cell);
+                    }
+                    cell.add(child);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Actor hit(float x, float y, boolean touchable) {
+        if (touchable && getTouchable() == Touchable.disabled)
+            return null;
+        if (!isVisible())
+            return null;
+
+        Array<Actor> cell = cells.get(key(cell(x), cell(y)));
+        if (cell == null)
+            return null;
+        for (int i = cell.size - 1; i >= 0; i--) {
+            Actor child = cell.get(i);
+            // Removed since the last rebuild
+            if (child.getParent() != this || !child.isVisible())
+                continue;
+            child.parentToLocalCoordinates(local.set(x, y));
+            Actor hit = child.hit(local.x, local.y, touchable);
+            if (hit != null)
+                return hit;
+        }
+        return null;
+    }
+
+    private static int cell(float coordinate) {
+        return MathUtils.floor(coordinate / CELL_SIZE);
+    }
+
+    private static int key(int cx, int cy) {
+        return (cx & 0xFFFF) << 16 | (cy & 0xFFFF);
+    }
+}
@@ -0,0 +1,83 @@
+package com.throng.game.entity;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.animation.HitMask;
+
+/**
+ * Everything the renderer needs of a pet for one frame, copied out of the {@link Pet} by the simulation. Once
+ * published in a {@link com.throng.game.world.WorldSnapshot} it is only read, so rendering never looks at a pet
+ * the simulation may be updating. Instances are reused from snapshot to snapshot, nothing here allocates.
+ */
+public final class PetSnapshot {
+    private final Vector2 position = new Vector2();
+    private boolean facingLeft;
+    private Pet.PetState state;
+    private Animation<TextureRegion> animation;
+    private int frameIndex;
+    private float timeToNextFrame;
+    private HitMask hitMask;
+    private float hunger, happiness, energy;
+
+    /** Simulation side only, before the snapshot is published. */
+    public void set(Pet pet) {
+        position.set(pet.getPosition());
+        facingLeft = pet.isFacingLeft();
+        state = pet.getState();
+        // Resolved here so the render thread never calls into the shared Animation
+        pet.selectFrame();
+        animation = pet.getFrameAnimation();
+        frameIndex = pet.getFrameIndex();
+        timeToNextFrame = pet.getTimeToNextFrame();
+        hitMask = pet.getFrameHitMask();
+        hunger = pet.getHunger();
+        happiness = pet.getHappiness();
+        energy = pet.getEnergy();
+    }
+
+    // Read only, it belongs to the snapshot
+    public Vector2 getPosition() {
+        return position;
+    }
+
+    public boolean isFacingLeft() {
+        return facingLeft;
+    }
+
+    public Pet.PetState getState() {
+        return state;
+    }
+
+    public Animation<TextureRegion> getAnimation() {
+        return animation;
+    }
+
+    public int getFrameIndex() {
+        return frameIndex;
+    }
+
+    public TextureRegion getCurrentFrame() {
+        return animation != null ? animation.getKeyFrames()[frameIndex] : Pet.EMPTY_FRAME;
+    }
+
+    public HitMask getCurrentHitMask() {
+        return hitMask;
+    }
+
+    public float getTimeToNextFrame() {
+        return timeToNextFrame;
+    }
+
+    public float getHunger() {
+        return hunger;
+    }
+
+    public float getHappiness() {
+        return happiness;
+    }
+
+    public float getEnergy() {
+        return energy;
+    }
+}
@@ -1,5 +0,0 @@
-package com.throng.game.entity;
-
-public interface PetStatObserver {
-    void updateBars(float hunger, float happiness, float energy);
-}
@@ -0,0 +1,180 @@
+package com.throng.game.entity;
+
+import java.util.Arrays;
+
+/**
+ * Hunger, happiness and energy of a crowd of pets in parallel arrays, one slot per pet, stepped for all of them at
+ * once by {@link #step}. What a pet's state does to its stats is written into its slot when the state changes: a
+ * decay rate per stat, zero while frozen, and for a timed action which stats it interpolates instead. A step is
+ * then one branch-free decay loop over every slot, which the JIT vectorizes, and a second one over only the pets in
+ * a timed action, which also lists the actions that ran out.
+ */
+public final class PetStats {
+    float[] hunger, happiness, energy;
+    // Per second
+    float[] hungerDecay, happinessDecay, energyDecay;
+    // 1 where the timed action interpolates the stat from its start by its gain, 0 where the stat decays
+    float[] hungerInterpolated, happinessInterpolated, energyInterpolated;
+    float[] hungerStart, happinessStart, energyStart;
+    float[] hungerGain, happinessGain, energyGain;
+    // Seconds into the timed action, and its length
+    float[] timer, duration;
+    private int size;
+
+    // Slots in a timed action, and where each slot is in that list, -1 when not in it
+    private int[] timed, timedIndex;
+    private int timedCount;
+    // Slots whose timed action ran out in the last step
+    private int[] finished;
+    private int finishedCount;
+
+    public PetStats(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /** Decays or interpolates every pet's stats by one step. */
+    public void step(float delta) {
+        float[] hunger = this.hunger, happiness = this.happiness, energy = this.energy;
+        float[] hungerDecay = this.hungerDecay, happinessDecay = this.happinessDecay, energyDecay = this.energyDecay;
+        for (int i = 0; i < size; i++) {
+            hunger[i] = Math.max(hunger[i] - hungerDecay[i] * delta, 0);
+            happiness[i] = Math.max(happiness[i] - happinessDecay[i] * delta, 0);
+            energy[i] = Math.max(energy[i] - energyDecay[i] * delta, 0);
+        }
+        // Interpolated stats have no decay, so the loop above left them as they were
+        finishedCount = 0;
+        for (int k = 0; k < timedCount; k++) {
+            int i = timed[k];
+            float elapsed = timer[i] + delta;
+            timer[i] = elapsed;
+            float t = Math.min(elapsed / duration[i], 1f);
+            float h = hungerInterpolated[i];
+            hunger[i] = h * (hungerStart[i] + hungerGain[i] * t) + (1f - h) * hunger[i];
+            float p = happinessInterpolated[i];
+            happiness[i] = p * (happinessStart[i] + happinessGain[i] * t) + (1f - p) * happiness[i];
+            float e = energyInterpolated[i];
+            energy[i] = e * (energyStart[i] + energyGain[i] * t) + (1f - e) * energy[i];
+            if (elapsed >= duration[i])
+                finished[finishedCount++] = i;
+        }
+    }
+
+    /**
+     * How many timed actions ran out in the last {@link #step}. Their slots keep interpolating until the owner ends
+     * them, which it should do before the next step whether or not it updates those pets then.
+     */
+    public int getFinishedCount() {
+        return finishedCount;
+    }
+
+    public int getFinished(int index) {
+        return finished[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Empties the store; the pets whose stats were here must not be stepped with it again. */
+    public void clear() {
+        size = 0;
+        timedCount = 0;
+        finishedCount = 0;
+    }
+
+    int add(float hunger, float happiness, float energy) {
+        if (size == this.hunger.length)
+            allocate(size * 2);
+        int slot = size++;
+        this.hunger[slot] = hunger;
+        this.happiness[slot] = happiness;
+        this.energy[slot] = energy;
+        timedIndex[slot] = -1;
+        return slot;
+    }
+
+    // Copies a slot of another store into a new one here, timed action and all
+    int add(PetStats from, int slot) {
+        int to = add(from.hunger[slot], from.happiness[slot], from.energy[slot]);
+        setDecay(to, from.hungerDecay[slot], from.happinessDecay[slot], from.energyDecay[slot]);
+        if (from.timedIndex[slot] >= 0) {
+            begin(to, from.duration[slot], from.hungerInterpolated[slot] != 0, from.happinessInterpolated[slot] != 0,
+                    from.energyInterpolated[slot] != 0);
+            hungerStart[to] = from.hungerStart[slot];
+            happinessStart[to] = from.happinessStart[slot];
+            energyStart[to] = from.energyStart[slot];
+            setGain(to, from.hungerGain[slot], from.happinessGain[slot], from.energyGain[slot]);
+            timer[to] = from.timer[slot];
+        }
+        return to;
+    }
+
+    void setDecay(int slot, float hunger, float happiness, float energy) {
+        hungerDecay[slot] = hunger;
+        happinessDecay[slot] = happiness;
+        energyDecay[slot] = energy;
+    }
+
+    /** Starts a timed action from the current stats, interpolating the ones given; see {@link #setGain}. */
+    void begin(int slot, float duration, boolean hunger, boolean happiness, boolean energy) {
+        hungerStart[slot] = this.hunger[slot];
+        happinessStart[slot] = this.happiness[slot];
+        energyStart[slot] = this.energy[slot];
+        hungerInterpolated[slot] = hunger ? 1f : 0f;
+        happinessInterpolated[slot] = happiness ? 1f : 0f;
+        energyInterpolated[slot] = energy ? 1f : 0f;
+        timer[slot] = 0;
+        this.duration[slot] = duration;
+        if (timedIndex[slot] < 0) {
+            timedIndex[slot] = timedCount;
+            timed[timedCount++] = slot;
+        }
+    }
+
+    void setGain(int slot, float hunger, float happiness, float energy) {
+        hungerGain[slot] = hunger;
+        happinessGain[slot] = happiness;
+        energyGain[slot] = energy;
+    }
+
+    void end(int slot) {
+        int index = timedIndex[slot];
+        if (index < 0)
+            return;
+        int last = timed[--timedCount];
+        timed[index] = last;
+        timedIndex[last] = index;
+        timedIndex[slot] = -1;
+    }
+
+    boolean isFinished(int slot) {
+        return timer[slot] >= duration[slot];
+    }
+
+    private void allocate(int capacity) {
+        hunger = grow(hunger, capacity);
+        happiness = grow(happiness, capacity);
+        energy = grow(energy, capacity);
+        hungerDecay = grow(hungerDecay, capacity);
+        happinessDecay = grow(happinessDecay, capacity);
+        energyDecay = grow(energyDecay, capacity);
+        hungerInterpolated = grow(hungerInterpolated, capacity);
+        happinessInterpolated = grow(happinessInterpolated, capacity);
+        energyInterpolated = grow(energyInterpolated, capacity);
+        hungerStart = grow(hungerStart, capacity);
+        happinessStart = grow(happinessStart, capacity);
+        energyStart = grow(energyStart, capacity);
+        hungerGain = grow(hungerGain, capacity);
+        happinessGain = grow(happinessGain, capacity);
+        energyGain = grow(energyGain, capacity);
+        timer = grow(timer, capacity);
+        duration = grow(duration, capacity);
+        timed = timed != null ? Arrays.copyOf(timed, capacity) : new int[capacity];
+        timedIndex = timedIndex != null ? Arrays.copyOf(timedIndex, capacity) : new int[capacity];
+        finished = finished != null ? Arrays.copyOf(finished, capacity) : new int[capacity];
+    }
+
+    private static float[] grow(float[] array, int capacity) {
+        return array != null ? Arrays.copyOf(array, capacity) : new float[capacity];
+    }
+}
@@ -0,0 +1,153 @@
+package com.throng.game.entity;
+
+/**
+ * Hunger, happiness and energy of one pet over time, in fixed memory, for charts. Three rings, finest first:
+ * <ul>
+ * <li>a sample every second for the last 10 minutes;</li>
+ * <li>every minute of those rolled up into one bucket, for the last 6 hours;</li>
+ * <li>every 15 minutes of those rolled up again, for the last week.</li>
+ * </ul>
+ * A rolled up bucket holds the min, mean and max of a stat over its time. Recording costs the same at any uptime
+ * and each ring overwrites its oldest bucket when full, so the history is about 44 KB however long the pet lives.
+ * It is written by whatever updates the pet, so read it on that thread.
+ */
+public final class StatHistory {
+    public static final int HUNGER = 0;
+    public static final int HAPPINESS = 1;
+    public static final int ENERGY = 2;
+    static final int STATS = 3;
+
+    static final float SAMPLE_SECONDS = 1f;
+    private static final int[] BUCKETS = { 600, 360, 672 };
+    // Buckets of the level below per bucket of a level
+    private static final int[] FAN_IN = { 1, 60, 15 };
+
+    private final Level[] levels = new Level[BUCKETS.length];
+    // Time since the last sample
+    private float elapsed;
+    private final float[] sample = new float[STATS];
+
+    private static final class Level {
+        final float bucketSeconds;
+        final int capacity;
+        final int fanIn;
+        // STATS values per bucket; the sample level keeps one value, so its three arrays are the same
+        final float[] min, mean, max;
+        // Buckets ever written
+        long count;
+        int next;
+        // The bucket being rolled up from the level below
+        final float[] pendingMin = new float[STATS], pendingSum = new float[STATS], pendingMax = new float[STATS];
+        int pending;
+
+        Level(float bucketSeconds, int capacity, int fanIn, boolean samples) {
+            this.bucketSeconds = bucketSeconds;
+            this.capacity = capacity;
+            this.fanIn = fanIn;
+            mean = new float[capacity * STATS];
+            min = samples ? mean : new float[capacity * STATS];
+            max = samples ? mean : new float[capacity * STATS];
+        }
+    }
+
+    public StatHistory() {
+        float seconds = SAMPLE_SECONDS;
+        for (int i = 0; i < levels.length; i++) {
+            seconds *= FAN_IN[i];
+            levels[i] = new Level(seconds, BUCKETS[i], FAN_IN[i], i == 0);
+        }
+    }
+
+    /**
+     * Advances the history by delta seconds, over which the stats ended at the given values. A delta spanning
+     * several samples, as an out of view pet's does, records the same values for each of them.
+     */
+    public void record(float delta, float hunger, float happiness, float energy) {
+        elapsed += delta;
+        if (elapsed < SAMPLE_SECONDS)
+            return;
+        sample[HUNGER] = hunger;
+        sample[HAPPINESS] = happiness;
+        sample[ENERGY] = energy;
+        while (elapsed >= SAMPLE_SECONDS) {
+            elapsed -= SAMPLE_SECONDS;
+            write(0, sample, sample, sample);
+        }
+    }
+
+    private void write(int index, float[] min, float[] mean, float[] max) {
+        Level level = levels[index];
+        int offset = level.next * STATS;
+        for (int s = 0; s < STATS; s++) {
+            level.min[offset + s] = min[s];
+            level.mean[offset + s] = mean[s];
+            level.max[offset + s] = max[s];
+        }
+        level.next = level.next + 1 == level.capacity ? 0 : level.next + 1;
+        level.count++;
+        if (index + 1 < levels.length)
+            rollUp(index + 1, min, mean, max);
+    }
+
+    private void rollUp(int index, float[] min, float[] mean, float[] max) {
+        Level level = levels[index];
+        if (level.pending == 0) {
+            for (int s = 0; s < STATS; s++) {
+                level.pendingMin[s] = min[s];
+                level.pendingSum[s] = mean[s];
+                level.pendingMax[s] = max[s];
+            }
+        } else {
+            for (int s = 0; s < STATS; s++) {
+                level.pendingMin[s] = Math.min(level.pendingMin[s], min[s]);
+                level.pendingSum[s] += mean[s];
+                level.pendingMax[s] = Math.max(level.pendingMax[s], max[s]);
+            }
+        }
+        if (++level.pending < level.fanIn)
+            return;
+        // The sum becomes the mean in place, it is started over with the next bucket anyway
+        for (int s = 0; s < STATS; s++)
+            level.pendingSum[s] /= level.fanIn;
+        level.pending = 0;
+        write(index, level.pendingMin, level.pendingSum, level.pendingMax);
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public float getBucketSeconds(int level) {
+        return levels[level].bucketSeconds;
+    }
+
+    /** The finest level whose ring spans the last {@code seconds}, or the coarsest if none does. */
+    public int levelFor(float seconds) {
+        for (int i = 0; i < levels.length - 1; i++) {
+            if (levels[i].bucketSeconds * levels[i].capacity >= seconds)
+                return i;
+        }
+        return levels.length - 1;
+    }
+
+    /**
+     * Copies the min, mean and max of a stat over the last {@code buckets} complete buckets of a level into the
+     * arrays, oldest first, and returns how many there were. The arrays need room for that many.
+     */
+    public int read(int level, int stat, int buckets, float[] min, float[] mean, float[] max) {
+        Level l = levels[level];
+        int n = (int) Math.min(Math.min(buckets, l.capacity), l.count);
+        int slot = l.next - n;
+        if (slot < 0)
+            slot += l.capacity;
+        for (int k = 0; k < n; k++) {
+            int offset = slot * STATS + stat;
+            min[k] = l.min[offset];
+            mean[k] = l.mean[offset];
+            max[k] = l.max[offset];
+            if (++slot == l.capacity)
+                slot = 0;
+        }
+        return n;
+    }
+}
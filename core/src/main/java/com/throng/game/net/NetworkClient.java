@@ -0,0 +1,346 @@
+package com.throng.game.net;
+
+import com.badlogic.gdx.Gdx;
+import com.throng.game.entity.Pet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Random;
+
+/**
+ * Client side of the world server. Sends commands, receives delta snapshots and shows the world a little in the
+ * past: pets are interpolated between the two held snapshots around a render clock that trails the newest one by
+ * {@link #INTERPOLATION_DELAY_TICKS}, so one lost or late snapshot never makes a pet stop or jump.
+ * <p>
+ * Commands are numbered and repeated in every input packet until a snapshot acks them, so they survive packet
+ * loss and are applied once. Call {@link #update(float)} once per frame; everything runs on the calling thread.
+ */
+public class NetworkClient implements Closeable {
+    private static final int HISTORY = 32;
+    private static final int MAX_PENDING_COMMANDS = 32;
+    // Two snapshot intervals, so one lost snapshot still leaves a newer one to interpolate towards
+    public static final int INTERPOLATION_DELAY_TICKS = 2 * Protocol.TICKS_PER_SNAPSHOT;
+    // Further behind than this and the render clock jumps forward instead of catching up
+    private static final int MAX_LAG_TICKS = 4 * Protocol.TICKS_PER_SNAPSHOT;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_PACKET);
+    private final ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_SEND);
+
+    // Held snapshots; a slot is reused once its tick is the oldest
+    private final QuantizedWorld[] history = new QuantizedWorld[HISTORY];
+    private QuantizedWorld newest;
+    // A snapshot split over several datagrams while some are still missing; its tick stays NO_TICK till then
+    private QuantizedWorld assembling;
+    private int assemblingTick;
+    private QuantizedWorld from, to;
+    private float alpha;
+    private float renderTick;
+
+    // Unacked commands, oldest first
+    private final int[] commandSeq = new int[MAX_PENDING_COMMANDS];
+    private final byte[] commandType = new byte[MAX_PENDING_COMMANDS];
+    private final int[] commandPet = new int[MAX_PENDING_COMMANDS];
+    private final float[] commandX = new float[MAX_PENDING_COMMANDS];
+    private final float[] commandY = new float[MAX_PENDING_COMMANDS];
+    private int pendingCommands;
+    private int nextCommandSeq = 1;
+
+    private final Random random = new Random();
+    private float packetLoss;
+    private long bytesReceived;
+
+    public NetworkClient(String host, int port) throws IOException {
+        for (int i = 0; i < HISTORY; i++) {
+            history[i] = new QuantizedWorld();
+        }
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, Protocol.SOCKET_BUFFER);
+        channel.connect(new InetSocketAddress(host, port));
+    }
+
+    /**
+     * Commands are resent until the server acks them. All four return false, and the command is dropped, while
+     * the commands waiting for an ack fill the client's queue, as they do when the server stops answering.
+     */
+    public boolean feed(int pet) {
+        return queue(Protocol.FEED, pet, 0, 0);
+    }
+
+    public boolean play(int pet) {
+        return queue(Protocol.PLAY, pet, 0, 0);
+    }
+
+    public boolean sleep(int pet) {
+        return queue(Protocol.SLEEP, pet, 0, 0);
+    }
+
+    public boolean drag(int pet, float x, float y) {
+        return queue(Protocol.DRAG, pet, x, y);
+    }
+
+    // A drag replaces the unsent position of the same pet, anything else waits for room
+    private boolean queue(byte type, int pet, float x, float y) {
+        if (type == Protocol.DRAG && pendingCommands > 0) {
+            int last = pendingCommands - 1;
+            if (commandType[last] == Protocol.DRAG && commandPet[last] == pet) {
+                commandSeq[last] = nextCommandSeq++;
+                commandX[last] = x;
+                commandY[last] = y;
+                return true;
+            }
+        }
+        if (pendingCommands == MAX_PENDING_COMMANDS) {
+            Gdx.app.error("NetworkClient", "Too many unacked commands, dropped command " + type);
+            return false;
+        }
+        commandSeq[pendingCommands] = nextCommandSeq++;
+        commandType[pendingCommands] = type;
+        commandPet[pendingCommands] = pet;
+        commandX[pendingCommands] = x;
+        commandY[pendingCommands] = y;
+        pendingCommands++;
+        return true;
+    }
+
+    /** Receives snapshots, sends input and advances the render clock by {@code delta} seconds. */
+    public void update(float delta) throws IOException {
+        receive();
+        send();
+
+        if (newest == null)
+            return;
+        renderTick += delta * Protocol.TICK_RATE;
+        if (renderTick < newest.tick - MAX_LAG_TICKS)
+            renderTick = newest.tick - INTERPOLATION_DELAY_TICKS;
+        else if (renderTick > newest.tick)
+            renderTick = newest.tick;
+        interpolate();
+    }
+
+    private void receive() throws IOException {
+        while (true) {
+            in.clear();
+            try {
+                if (channel.receive(in) == null)
+                    return;
+            } catch (PortUnreachableException e) {
+                // The server is not up yet; the next hello tries again
+                return;
+            }
+            in.flip();
+            bytesReceived += in.remaining();
+            if (packetLoss > 0 && random.nextFloat() < packetLoss)
+                continue;
+            if (in.remaining() < 1 || in.get() != Protocol.SNAPSHOT)
+                continue;
+            try {
+                readSnapshot();
+            } catch (IllegalArgumentException e) {
+                // A malformed packet is dropped like a lost one
+            }
+        }
+    }
+
+    private void readSnapshot() {
+        acknowledge(in.getInt());
+        int baselineTick = QuantizedWorld.baselineTick(in);
+        QuantizedWorld baseline = null;
+        if (baselineTick != Protocol.NO_TICK) {
+            baseline = find(baselineTick);
+            // Encoded against a snapshot this client no longer holds
+            if (baseline == null)
+                return;
+        }
+        int tick = QuantizedWorld.partTick(in);
+        // Late and out of order: nothing newer can be built from it
+        if (newest != null && tick <= newest.tick)
+            return;
+
+        // The parts of a tick go into one slot; a newer tick gives up on one still missing parts
+        if (assembling == null || tick != assemblingTick) {
+            if (assembling != null && tick < assemblingTick)
+                return;
+            assembling = oldestSlot(baseline);
+            assemblingTick = tick;
+        }
+        if (!assembling.readPart(in, baseline))
+            return;
+        if (newest == null)
+            renderTick = tick - INTERPOLATION_DELAY_TICKS;
+        newest = assembling;
+        assembling = null;
+    }
+
+    private void acknowledge(int ackedSeq) {
+        int acked = 0;
+        while (acked < pendingCommands && commandSeq[acked] - ackedSeq <= 0) {
+            acked++;
+        }
+        if (acked == 0)
+            return;
+        pendingCommands -= acked;
+        System.arraycopy(commandSeq, acked, commandSeq, 0, pendingCommands);
+        System.arraycopy(commandType, acked, commandType, 0, pendingCommands);
+        System.arraycopy(commandPet, acked, commandPet, 0, pendingCommands);
+        System.arraycopy(commandX, acked, commandX, 0, pendingCommands);
+        System.arraycopy(commandY, acked, commandY, 0, pendingCommands);
+    }
+
+    private QuantizedWorld find(int tick) {
+        for (QuantizedWorld world : history) {
+            if (world.tick == tick)
+                return world;
+        }
+        return null;
+    }
+
+    private QuantizedWorld oldestSlot(QuantizedWorld keep) {
+        QuantizedWorld oldest = null;
+        for (QuantizedWorld world : history) {
+            if (world == keep)
+                continue;
+            if (world.tick == Protocol.NO_TICK)
+                return world;
+            if (oldest == null || world.tick < oldest.tick)
+                oldest = world;
+        }
+        return oldest;
+    }
+
+    private void send() throws IOException {
+        out.clear();
+        // Commands go out before the first snapshot is in, which can take a while for a big world over a lossy link
+        if (newest == null && pendingCommands == 0) {
+            out.put(Protocol.HELLO);
+        } else {
+            out.put(Protocol.INPUT);
+            out.putInt(newest != null ? newest.tick : Protocol.NO_TICK);
+            Protocol.putVarInt(out, pendingCommands);
+            for (int i = 0; i < pendingCommands; i++) {
+                out.putInt(commandSeq[i]);
+                out.put(commandType[i]);
+                Protocol.putVarInt(out, commandPet[i]);
+                if (commandType[i] == Protocol.DRAG) {
+                    out.putFloat(commandX[i]);
+                    out.putFloat(commandY[i]);
+                }
+            }
+        }
+        out.flip();
+        if (packetLoss > 0 && random.nextFloat() < packetLoss)
+            return;
+        try {
+            channel.write(out);
+        } catch (PortUnreachableException e) {
+            // Not up yet, see receive()
+        }
+    }
+
+    // Picks the held snapshots on either side of the render clock
+    private void interpolate() {
+        from = null;
+        to = null;
+        for (QuantizedWorld world : history) {
+            if (world.tick == Protocol.NO_TICK)
+                continue;
+            if (world.tick <= renderTick) {
+                if (from == null || world.tick > from.tick)
+                    from = world;
+            } else if (to == null || world.tick < to.tick) {
+                to = world;
+            }
+        }
+        if (from == null) {
+            from = to;
+            to = null;
+        }
+        alpha = to != null ? (renderTick - from.tick) / (to.tick - from.tick) : 0f;
+    }
+
+    /** True once the first snapshot has arrived. */
+    public boolean isConnected() {
+        return newest != null;
+    }
+
+    /** Pets in the snapshot being shown. */
+    public int getPetCount() {
+        return from != null ? from.petCount : 0;
+    }
+
+    public float getX(int pet) {
+        float x = from.getX(pet);
+        return to != null && pet < to.petCount ? x + (to.getX(pet) - x) * alpha : x;
+    }
+
+    public float getY(int pet) {
+        float y = from.getY(pet);
+        return to != null && pet < to.petCount ? y + (to.getY(pet) - y) * alpha : y;
+    }
+
+    public Pet.PetState getState(int pet) {
+        return from.getState(pet);
+    }
+
+    public boolean isFacingLeft(int pet) {
+        return from.isFacingLeft(pet);
+    }
+
+    public int getFrameIndex(int pet) {
+        return from.getFrameIndex(pet);
+    }
+
+    public int getHunger(int pet) {
+        return from.getHunger(pet);
+    }
+
+    public int getHappiness(int pet) {
+        return from.getHappiness(pet);
+    }
+
+    public int getEnergy(int pet) {
+        return from.getEnergy(pet);
+    }
+
+    /** The snapshot the shown state starts from; fruits and exact server values come from here. */
+    public QuantizedWorld getShownSnapshot() {
+        return from;
+    }
+
+    /** The newest snapshot received, ahead of what is shown. */
+    public QuantizedWorld getNewestSnapshot() {
+        return newest;
+    }
+
+    public int getPendingCommands() {
+        return pendingCommands;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /** Drops this fraction of packets in both directions, to try the protocol on a bad network. */
+    public void setPacketLoss(float packetLoss) {
+        this.packetLoss = packetLoss;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.clear();
+        out.put(Protocol.BYE);
+        out.flip();
+        try {
+            channel.write(out);
+        } catch (IOException e) {
+            // Leaving anyway, the server times the client out
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,84 @@
+package com.throng.game.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire constants and primitive encodings shared by the world server and {@link NetworkClient}. Every message is
+ * one UDP datagram that starts with its type byte. Clients send {@link #HELLO} once, then {@link #INPUT} packets
+ * that ack the newest snapshot they hold and repeat every command the server has not confirmed yet. The server
+ * answers with {@link #SNAPSHOT} packets, each a delta against the last snapshot that client acked, split into
+ * parts of at most {@link #MAX_SEND} bytes.
+ */
+public final class Protocol {
+    public static final int DEFAULT_PORT = 7777;
+    // Simulation steps per second on the server, and how often it sends snapshots
+    public static final int TICK_RATE = 60;
+    public static final int SNAPSHOT_RATE = 20;
+    public static final int TICKS_PER_SNAPSHOT = TICK_RATE / SNAPSHOT_RATE;
+    // Largest UDP payload, what receive buffers are sized for
+    public static final int MAX_PACKET = 65507;
+    // Most either side sends in one datagram, so it fits a 1500 byte MTU with room for IP, UDP and tunnel headers
+    // and is never fragmented; a lost datagram then costs one snapshot part, not a part made of dozens of fragments
+    public static final int MAX_SEND = 1200;
+    // Asked of both sockets, so a snapshot split over many datagrams is not dropped by a full buffer; the OS may
+    // grant less (net.core.rmem_max and wmem_max on Linux)
+    public static final int SOCKET_BUFFER = 4 << 20;
+
+    // Client to server
+    public static final byte HELLO = 1;
+    public static final byte INPUT = 2;
+    public static final byte BYE = 3;
+    // Server to client
+    public static final byte SNAPSHOT = 10;
+
+    // Commands inside INPUT packets
+    public static final byte FEED = 1;
+    public static final byte PLAY = 2;
+    public static final byte SLEEP = 3;
+    public static final byte DRAG = 4;
+
+    // Positions travel as fixed point with this many steps per world unit
+    public static final float POSITION_SCALE = 8f;
+    public static final int NO_TICK = -1;
+
+    private Protocol() {
+    }
+
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // Zigzag, so small negative deltas stay one byte
+    public static void putSignedVarInt(ByteBuffer buffer, int value) {
+        putVarInt(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    public static int getSignedVarInt(ByteBuffer buffer) {
+        int raw = getVarInt(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public static int quantizePosition(float coordinate) {
+        return Math.round(coordinate * POSITION_SCALE);
+    }
+
+    public static float dequantizePosition(int coordinate) {
+        return coordinate / POSITION_SCALE;
+    }
+}
@@ -0,0 +1,393 @@
+package com.throng.game.net;
+
+import com.badlogic.gdx.utils.Array;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetSnapshot;
+import com.throng.game.world.GameWorld;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One server tick of the world at network precision: positions in 1/8 units, stats as whole percents, state and
+ * facing packed into a byte. The server captures one of these per snapshot and both ends keep a short history,
+ * so a snapshot only has to carry what changed since a tick the client already holds:
+ * <ul>
+ * <li>pets are written only when a field changed, as a gap from the previous written pet, a field mask and the
+ * changed fields, with positions as zigzag deltas;</li>
+ * <li>fruits never move, so the list is only sent again when it differs from the baseline.</li>
+ * </ul>
+ * Without a baseline every field is written against zero, which is the same format. A snapshot bigger than
+ * {@link Protocol#MAX_SEND} is split into parts, each with a run of the pets and fruits, which the client puts back
+ * together.
+ */
+public class QuantizedWorld {
+    private static final int POSITION = 1;
+    private static final int STATE = 2;
+    private static final int FRAME = 4;
+    private static final int STATS = 8;
+    private static final int ALL = POSITION | STATE | FRAME | STATS;
+    private static final Pet.PetState[] STATES = Pet.PetState.values();
+    // Most a pet or a fruit can take in a part, and the fruit section's header: flag, total, first and count
+    private static final int MAX_PET_BYTES = 5 + 1 + 5 + 5 + 1 + 1 + 3;
+    private static final int MAX_FRUIT_BYTES = 5 + 5;
+    private static final int FRUIT_HEADER_BYTES = 1 + 5 + 5 + 5;
+    // Tick, baseline, part, parts, pet count and changed count
+    private static final int PART_HEADER_BYTES = 4 + 4 + 2 + 2 + 5 + 2;
+
+    /** Most datagrams one snapshot can be split into. */
+    public static final int MAX_PARTS = 0xFFFF;
+    /**
+     * Most pets a snapshot is sure to carry, in full over {@link #MAX_PARTS} datagrams that also hold the packet
+     * type and an int before each part.
+     */
+    public static final int MAX_PETS = MAX_PARTS
+            * ((Protocol.MAX_SEND - 1 - 4 - PART_HEADER_BYTES - FRUIT_HEADER_BYTES) / MAX_PET_BYTES);
+
+    int tick = Protocol.NO_TICK;
+    int petCount;
+    int[] x = new int[16];
+    int[] y = new int[16];
+    // State ordinal << 1 | facing left
+    byte[] state = new byte[16];
+    byte[] frame = new byte[16];
+    byte[] hunger = new byte[16];
+    byte[] happiness = new byte[16];
+    byte[] energy = new byte[16];
+    int fruitCount;
+    int[] fruitX = new int[16];
+    int[] fruitY = new int[16];
+
+    private final PetSnapshot scratch = new PetSnapshot();
+
+    // Writer side: where the next part starts
+    private int nextPet, nextFruit;
+    private boolean fruitsChanged;
+    // Reader side: the tick whose parts are coming in, and which of them are
+    private int assemblingTick = Protocol.NO_TICK;
+    // One bit per part, grown to the most parts a tick has had
+    private long[] received = new long[1];
+    private int receivedParts;
+
+    /** Server side: quantizes the world as it is after {@code tick}. */
+    public void capture(GameWorld world, int tick) {
+        this.tick = tick;
+        Array<Pet> pets = world.getPets();
+        ensurePets(pets.size);
+        petCount = pets.size;
+        for (int i = 0; i < petCount; i++) {
+            scratch.set(pets.get(i));
+            x[i] = Protocol.quantizePosition(scratch.getPosition().x);
+            y[i] = Protocol.quantizePosition(scratch.getPosition().y);
+            state[i] = (byte) (scratch.getState().ordinal() << 1 | (scratch.isFacingLeft() ? 1 : 0));
+            frame[i] = (byte) scratch.getFrameIndex();
+            hunger[i] = (byte) Math.round(scratch.getHunger());
+            happiness[i] = (byte) Math.round(scratch.getHappiness());
+            energy[i] = (byte) Math.round(scratch.getEnergy());
+        }
+        Array<Fruit> fruits = world.getFruits();
+        ensureFruits(fruits.size);
+        fruitCount = fruits.size;
+        for (int i = 0; i < fruitCount; i++) {
+            fruitX[i] = Protocol.quantizePosition(fruits.get(i).getPosition().x);
+            fruitY[i] = Protocol.quantizePosition(fruits.get(i).getPosition().y);
+        }
+    }
+
+    /**
+     * Writes the next part of this tick as a delta against {@code baseline}, or in full when it is null, into
+     * what is left of {@code out}, and returns true when it was the last one. Part 0 starts over. Every part is
+     * written against the same baseline and the number of parts goes in once they are all written, through
+     * {@link #setPartCount}.
+     */
+    public boolean writePart(ByteBuffer out, QuantizedWorld baseline, int part) {
+        if (part == 0) {
+            nextPet = 0;
+            nextFruit = 0;
+            fruitsChanged = baseline == null || !sameFruits(baseline);
+        }
+        out.putInt(tick);
+        out.putInt(baseline != null ? baseline.tick : Protocol.NO_TICK);
+        out.putShort((short) part);
+        out.putShort((short) 0);
+        Protocol.putVarInt(out, petCount);
+
+        // The changed count goes in front of the pets, patched once they are written
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        int changed = 0;
+        int previous = -1;
+        for (; nextPet < petCount && out.remaining() >= MAX_PET_BYTES + FRUIT_HEADER_BYTES; nextPet++) {
+            int i = nextPet;
+            int mask = baseline != null && i < baseline.petCount ? changes(baseline, i) : ALL;
+            if (mask == 0)
+                continue;
+            Protocol.putVarInt(out, i - previous - 1);
+            previous = i;
+            out.put((byte) mask);
+            boolean based = baseline != null && i < baseline.petCount;
+            if ((mask & POSITION) != 0) {
+                Protocol.putSignedVarInt(out, x[i] - (based ? baseline.x[i] : 0));
+                Protocol.putSignedVarInt(out, y[i] - (based ? baseline.y[i] : 0));
+            }
+            if ((mask & STATE) != 0)
+                out.put(state[i]);
+            if ((mask & FRAME) != 0)
+                out.put(frame[i]);
+            if ((mask & STATS) != 0) {
+                out.put(hunger[i]);
+                out.put(happiness[i]);
+                out.put(energy[i]);
+            }
+            changed++;
+        }
+        out.putShort(countPosition, (short) changed);
+
+        // Changed fruits go as a range of the full list in every part, as many as fit after the pets
+        out.put((byte) (fruitsChanged ? 1 : 0));
+        if (fruitsChanged) {
+            int count = Math.min(fruitCount - nextFruit, (out.remaining() - FRUIT_HEADER_BYTES) / MAX_FRUIT_BYTES);
+            Protocol.putVarInt(out, fruitCount);
+            Protocol.putVarInt(out, nextFruit);
+            Protocol.putVarInt(out, count);
+            for (int i = nextFruit; i < nextFruit + count; i++) {
+                Protocol.putVarInt(out, fruitX[i]);
+                Protocol.putVarInt(out, fruitY[i]);
+            }
+            nextFruit += count;
+        }
+        return nextPet == petCount && (!fruitsChanged || nextFruit == fruitCount);
+    }
+
+    /** Sets the number of parts in a part {@link #writePart} started writing at {@code start} of {@code packet}. */
+    public static void setPartCount(ByteBuffer packet, int start, int parts) {
+        packet.putShort(start + 10, (short) parts);
+    }
+
+    private int changes(QuantizedWorld baseline, int i) {
+        int mask = 0;
+        if (x[i] != baseline.x[i] || y[i] != baseline.y[i])
+            mask |= POSITION;
+        if (state[i] != baseline.state[i])
+            mask |= STATE;
+        if (frame[i] != baseline.frame[i])
+            mask |= FRAME;
+        if (hunger[i] != baseline.hunger[i] || happiness[i] != baseline.happiness[i]
+                || energy[i] != baseline.energy[i])
+            mask |= STATS;
+        return mask;
+    }
+
+    private boolean sameFruits(QuantizedWorld baseline) {
+        if (fruitCount != baseline.fruitCount)
+            return false;
+        for (int i = 0; i < fruitCount; i++) {
+            if (fruitX[i] != baseline.fruitX[i] || fruitY[i] != baseline.fruitY[i])
+                return false;
+        }
+        return true;
+    }
+
+    /** Peeks the tick of a snapshot part without consuming it; {@code in} is positioned after the type byte. */
+    static int partTick(ByteBuffer in) {
+        return in.getInt(in.position());
+    }
+
+    /** Peeks the baseline tick of a snapshot part the same way. */
+    static int baselineTick(ByteBuffer in) {
+        return in.getInt(in.position() + 4);
+    }
+
+    /**
+     * Decodes a part written by {@link #writePart} into this world and returns true once every part of its tick is
+     * in, in any order. Until then {@link #getTick()} is {@link Protocol#NO_TICK}; a part of another tick starts
+     * over. {@code baseline} must be the tick the server encoded against, or null for a full snapshot.
+     */
+    public boolean readPart(ByteBuffer in, QuantizedWorld baseline) {
+        try {
+            int partTick = in.getInt();
+            in.getInt();
+            int part = in.getShort() & 0xFFFF;
+            int parts = in.getShort() & 0xFFFF;
+            int count = Protocol.getVarInt(in);
+            if (partTick != assemblingTick)
+                begin(partTick, count, parts, baseline);
+            // Duplicated by the network
+            long bit = 1L << part;
+            if ((received[part >>> 6] & bit) != 0)
+                return false;
+            received[part >>> 6] |= bit;
+            receivedParts++;
+
+            int changed = in.getShort() & 0xFFFF;
+            int i = -1;
+            for (int c = 0; c < changed; c++) {
+                i += Protocol.getVarInt(in) + 1;
+                int mask = in.get();
+                if ((mask & POSITION) != 0) {
+                    x[i] += Protocol.getSignedVarInt(in);
+                    y[i] += Protocol.getSignedVarInt(in);
+                }
+                if ((mask & STATE) != 0)
+                    state[i] = in.get();
+                if ((mask & FRAME) != 0)
+                    frame[i] = in.get();
+                if ((mask & STATS) != 0) {
+                    hunger[i] = in.get();
+                    happiness[i] = in.get();
+                    energy[i] = in.get();
+                }
+            }
+
+            if (in.get() != 0) {
+                int fruits = Protocol.getVarInt(in);
+                ensureFruits(fruits);
+                fruitCount = fruits;
+                int first = Protocol.getVarInt(in);
+                int fruitsInPart = Protocol.getVarInt(in);
+                for (int f = first; f < first + fruitsInPart; f++) {
+                    fruitX[f] = Protocol.getVarInt(in);
+                    fruitY[f] = Protocol.getVarInt(in);
+                }
+            }
+
+            if (receivedParts < parts)
+                return false;
+            tick = partTick;
+            assemblingTick = Protocol.NO_TICK;
+            return true;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            tick = Protocol.NO_TICK;
+            assemblingTick = Protocol.NO_TICK;
+            throw new IllegalArgumentException("Malformed snapshot", e);
+        }
+    }
+
+    // Starts the tick from its baseline, which the parts then only change
+    private void begin(int tick, int count, int parts, QuantizedWorld baseline) {
+        this.tick = Protocol.NO_TICK;
+        assemblingTick = tick;
+        if (received.length < (parts + 63) >>> 6)
+            received = new long[(parts + 63) >>> 6];
+        Arrays.fill(received, 0L);
+        receivedParts = 0;
+        ensurePets(count);
+        petCount = count;
+        for (int i = 0; i < petCount; i++) {
+            boolean based = baseline != null && i < baseline.petCount;
+            x[i] = based ? baseline.x[i] : 0;
+            y[i] = based ? baseline.y[i] : 0;
+            state[i] = based ? baseline.state[i] : 0;
+            frame[i] = based ? baseline.frame[i] : 0;
+            hunger[i] = based ? baseline.hunger[i] : 0;
+            happiness[i] = based ? baseline.happiness[i] : 0;
+            energy[i] = based ? baseline.energy[i] : 0;
+        }
+        if (baseline != null) {
+            ensureFruits(baseline.fruitCount);
+            fruitCount = baseline.fruitCount;
+            System.arraycopy(baseline.fruitX, 0, fruitX, 0, fruitCount);
+            System.arraycopy(baseline.fruitY, 0, fruitY, 0, fruitCount);
+        } else {
+            fruitCount = 0;
+        }
+    }
+
+    /** True when both hold the same state, ignoring the tick. */
+    public boolean sameState(QuantizedWorld other) {
+        if (petCount != other.petCount || !sameFruits(other))
+            return false;
+        for (int i = 0; i < petCount; i++) {
+            if (changes(other, i) != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private void ensurePets(int count) {
+        if (x.length >= count)
+            return;
+        int capacity = Math.max(count, x.length * 2);
+        x = copy(x, capacity);
+        y = copy(y, capacity);
+        state = copy(state, capacity);
+        frame = copy(frame, capacity);
+        hunger = copy(hunger, capacity);
+        happiness = copy(happiness, capacity);
+        energy = copy(energy, capacity);
+    }
+
+    private void ensureFruits(int count) {
+        if (fruitX.length >= count)
+            return;
+        int capacity = Math.max(count, fruitX.length * 2);
+        fruitX = copy(fruitX, capacity);
+        fruitY = copy(fruitY, capacity);
+    }
+
+    private static int[] copy(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static byte[] copy(byte[] array, int capacity) {
+        byte[] copy = new byte[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getPetCount() {
+        return petCount;
+    }
+
+    public float getX(int pet) {
+        return Protocol.dequantizePosition(x[pet]);
+    }
+
+    public float getY(int pet) {
+        return Protocol.dequantizePosition(y[pet]);
+    }
+
+    public Pet.PetState getState(int pet) {
+        return STATES[(state[pet] & 0xFF) >> 1];
+    }
+
+    public boolean isFacingLeft(int pet) {
+        return (state[pet] & 1) != 0;
+    }
+
+    public int getFrameIndex(int pet) {
+        return frame[pet] & 0xFF;
+    }
+
+    public int getHunger(int pet) {
+        return hunger[pet];
+    }
+
+    public int getHappiness(int pet) {
+        return happiness[pet];
+    }
+
+    public int getEnergy(int pet) {
+        return energy[pet];
+    }
+
+    public int getFruitCount() {
+        return fruitCount;
+    }
+
+    public float getFruitX(int fruit) {
+        return Protocol.dequantizePosition(fruitX[fruit]);
+    }
+
+    public float getFruitY(int fruit) {
+        return Protocol.dequantizePosition(fruitY[fruit]);
+    }
+}
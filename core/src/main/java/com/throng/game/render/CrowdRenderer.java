@@ -0,0 +1,367 @@
+package com.throng.game.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetSnapshot;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Draws a crowd of pets in one draw call. Every animation frame is scaled down to its drawn size into a single atlas
+ * texture, rendered on the GPU into a frame buffer. Per pet the CPU then only writes its position, frame number and
+ * facing, 16 bytes, and a shader looks the frame up in the atlas and builds the quad. With GL30 that is one
+ * instanced draw; without it the same atlas regions go through the {@link Batch}, which at least never switches
+ * texture between pets.
+ * <p>
+ * The atlas and the instancing buffers live in GL only, so after a context loss they are rebuilt once the
+ * {@link TextureRegistry} has restored the frames; the crowd is not drawn until then.
+ */
+public class CrowdRenderer implements Disposable {
+    // x, y, frame, facing left (0 or 1)
+    private static final int FLOATS_PER_PET = 4;
+    // Transparent gutter around each cell, so linear filtering never picks up the neighbouring frame
+    private static final int PADDING = 1;
+
+    private static final String VERTEX_SHADER = ""
+            + "attribute vec2 a_corner;\n"
+            + "attribute vec4 a_pet;\n"
+            + "uniform mat4 u_projTrans;\n"
+            + "uniform vec2 u_size;\n"
+            + "uniform vec2 u_pitch;\n"
+            + "uniform vec2 u_inset;\n"
+            + "uniform vec2 u_frame;\n"
+            + "uniform float u_columns;\n"
+            + "varying vec2 v_texCoords;\n"
+            + "void main() {\n"
+            + "    float row = floor((a_pet.z + 0.5) / u_columns);\n"
+            + "    float column = a_pet.z - row * u_columns;\n"
+            + "    vec2 corner = vec2(mix(a_corner.x, 1.0 - a_corner.x, a_pet.w), a_corner.y);\n"
+            + "    v_texCoords = vec2(column, row) * u_pitch + u_inset + corner * u_frame;\n"
+            + "    gl_Position = u_projTrans * vec4(a_pet.xy + (a_corner - 0.5) * u_size, 0.0, 1.0);\n"
+            + "}\n";
+
+    private static final String FRAGMENT_SHADER = ""
+            + "#ifdef GL_ES\n"
+            + "precision mediump float;\n"
+            + "#endif\n"
+            + "varying vec2 v_texCoords;\n"
+            + "uniform sampler2D u_texture;\n"
+            + "void main() {\n"
+            + "    gl_FragColor = texture2D(u_texture, v_texCoords);\n"
+            + "}\n";
+
+    private final Array<Animation<TextureRegion>> animations = new Array<>();
+    // Atlas number of each animation's first frame, the rest follow in order
+    private final ObjectIntMap<Animation<TextureRegion>> firstFrames = new ObjectIntMap<>();
+    private final int frameCount;
+    private final int columns, rows;
+    private final int frameWidth, frameHeight;
+    private final int cellWidth, cellHeight;
+
+    private FrameBuffer atlas;
+    private TextureRegion[] regions;
+    private TextureRegion[] flippedRegions;
+    private final Matrix4 atlasProjection = new Matrix4();
+    private final Matrix4 batchProjection = new Matrix4();
+    private final Vector2 cell = new Vector2();
+    private boolean atlasValid;
+    private int contextLosses;
+
+    private final boolean instanced;
+    private ShaderProgram shader;
+    private int vertexArray, cornerBuffer, petBuffer;
+    private final int[] handle = new int[1];
+    private float[] petData = new float[256 * FLOATS_PER_PET];
+    private FloatBuffer petBufferData = BufferUtils.newFloatBuffer(petData.length);
+
+    // Pets whose animation is not in the atlas are drawn through the batch from their own frame
+    private final Array<PetSnapshot> others = new Array<>(false, 16, PetSnapshot.class);
+
+    /** Packs every animation of {@code animationManager}; the atlas itself is drawn on first use. */
+    public CrowdRenderer(AnimationManager animationManager) {
+        int frames = 0;
+        int maxWidth = 1, maxHeight = 1;
+        for (Animation<TextureRegion> animation : animationManager.getAnimations()) {
+            animations.add(animation);
+            firstFrames.put(animation, frames);
+            for (TextureRegion frame : animation.getKeyFrames()) {
+                maxWidth = Math.max(maxWidth, frame.getRegionWidth());
+                maxHeight = Math.max(maxHeight, frame.getRegionHeight());
+            }
+            frames += animation.getKeyFrames().length;
+        }
+        frameCount = frames;
+        columns = Math.max(1, MathUtils.ceil((float) Math.sqrt(frameCount)));
+        rows = Math.max(1, MathUtils.ceil((float) frameCount / columns));
+        frameWidth = MathUtils.ceil(maxWidth * Pet.DRAW_SCALE);
+        frameHeight = MathUtils.ceil(maxHeight * Pet.DRAW_SCALE);
+
+        // GLES2 only promises 2048: on smaller limits the cells shrink, and the pets are drawn from fewer pixels
+        IntBuffer maxSize = BufferUtils.newIntBuffer(16);
+        Gdx.gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_SIZE, maxSize);
+        int maxTextureSize = maxSize.get(0) > 0 ? maxSize.get(0) : 2048;
+        float fit = Math.min(1f, Math.min((float) maxTextureSize / (columns * (frameWidth + 2 * PADDING)),
+                (float) maxTextureSize / (rows * (frameHeight + 2 * PADDING))));
+        cellWidth = (int) ((frameWidth + 2 * PADDING) * fit) - 2 * PADDING;
+        cellHeight = (int) ((frameHeight + 2 * PADDING) * fit) - 2 * PADDING;
+
+        instanced = Gdx.gl30 != null;
+        if (instanced) {
+            shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+            if (!shader.isCompiled())
+                throw new GdxRuntimeException("Crowd shader did not compile: " + shader.getLog());
+        }
+        contextLosses = TextureRegistry.get().getContextLosses();
+    }
+
+    /** True when the crowd is drawn instanced, false when it goes through the batch. */
+    public boolean isInstanced() {
+        return instanced;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Draws {@code pets} except {@code skip}, which is drawn elsewhere and may be null, centred on their positions
+     * and with the batch's projection. The batch must not be drawing.
+     */
+    public void render(Batch batch, Array<PetSnapshot> pets, PetSnapshot skip) {
+        if (pets.size == 0 || pets.size == 1 && pets.first() == skip)
+            return;
+        TextureRegistry registry = TextureRegistry.get();
+        if (registry.getContextLosses() != contextLosses) {
+            // Whatever was in GL died with the context, nothing to delete
+            contextLosses = registry.getContextLosses();
+            atlasValid = false;
+            vertexArray = 0;
+        }
+        if (!atlasValid) {
+            // The frames are placeholders until the registry has restored them
+            if (registry.isRestoring())
+                return;
+            buildAtlas(batch);
+        }
+
+        others.clear();
+        if (instanced) {
+            drawInstanced(batch.getProjectionMatrix(), pets, skip);
+            if (others.size > 0) {
+                batch.begin();
+                drawOthers(batch);
+                batch.end();
+            }
+        } else {
+            batch.begin();
+            drawBatched(batch, pets, skip);
+            drawOthers(batch);
+            batch.end();
+        }
+    }
+
+    private void buildAtlas(Batch batch) {
+        int width = columns * (cellWidth + 2 * PADDING);
+        int height = rows * (cellHeight + 2 * PADDING);
+        if (atlas == null) {
+            atlas = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+        }
+        // A lost context rebuilds the frame buffer with a new, empty texture
+        Texture texture = atlas.getColorBufferTexture();
+        texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        TextureRegistry.get().track(texture, TextureRegistry.Priority.VISIBLE);
+
+        atlas.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        atlasProjection.setToOrtho2D(0, 0, width, height);
+        batchProjection.set(batch.getProjectionMatrix());
+        batch.setProjectionMatrix(atlasProjection);
+        // Copied as they are, alpha included, rather than blended onto the cleared buffer
+        batch.disableBlending();
+        batch.begin();
+        regions = new TextureRegion[frameCount];
+        flippedRegions = new TextureRegion[frameCount];
+        for (int a = 0; a < animations.size; a++) {
+            Animation<TextureRegion> animation = animations.get(a);
+            TextureRegion[] frames = animation.getKeyFrames();
+            int first = firstFrames.get(animation, 0);
+            for (int f = 0; f < frames.length; f++) {
+                int index = first + f;
+                cellOrigin(index, cell);
+                batch.draw(frames[f], cell.x, cell.y, cellWidth, cellHeight);
+                // Frame buffer textures are upside down
+                regions[index] = new TextureRegion(texture, (int) cell.x, (int) cell.y, cellWidth, cellHeight);
+                regions[index].flip(false, true);
+                flippedRegions[index] = new TextureRegion(regions[index]);
+                flippedRegions[index].flip(true, false);
+            }
+        }
+        batch.end();
+        batch.enableBlending();
+        batch.setProjectionMatrix(batchProjection);
+        atlas.end();
+        atlasValid = true;
+    }
+
+    // Bottom left corner of the frame's cell in atlas pixels, row 0 at the bottom
+    private void cellOrigin(int index, Vector2 out) {
+        int row = index / columns;
+        int column = index - row * columns;
+        out.set(column * (cellWidth + 2 * PADDING) + PADDING, row * (cellHeight + 2 * PADDING) + PADDING);
+    }
+
+    private void drawBatched(Batch batch, Array<PetSnapshot> pets, PetSnapshot skip) {
+        float halfWidth = frameWidth / 2f;
+        float halfHeight = frameHeight / 2f;
+        for (int i = 0; i < pets.size; i++) {
+            PetSnapshot pet = pets.get(i);
+            if (pet == skip)
+                continue;
+            int frame = frameOf(pet);
+            if (frame < 0) {
+                others.add(pet);
+                continue;
+            }
+            TextureRegion region = pet.isFacingLeft() ? flippedRegions[frame] : regions[frame];
+            Vector2 position = pet.getPosition();
+            batch.draw(region, position.x - halfWidth, position.y - halfHeight, frameWidth, frameHeight);
+        }
+    }
+
+    private void drawInstanced(Matrix4 projection, Array<PetSnapshot> pets, PetSnapshot skip) {
+        if (petData.length < pets.size * FLOATS_PER_PET) {
+            petData = new float[MathUtils.nextPowerOfTwo(pets.size) * FLOATS_PER_PET];
+            petBufferData = BufferUtils.newFloatBuffer(petData.length);
+        }
+        float[] data = petData;
+        int count = 0;
+        for (int i = 0; i < pets.size; i++) {
+            PetSnapshot pet = pets.get(i);
+            if (pet == skip)
+                continue;
+            int frame = frameOf(pet);
+            if (frame < 0) {
+                others.add(pet);
+                continue;
+            }
+            int offset = count++ * FLOATS_PER_PET;
+            data[offset] = pet.getPosition().x;
+            data[offset + 1] = pet.getPosition().y;
+            data[offset + 2] = frame;
+            data[offset + 3] = pet.isFacingLeft() ? 1 : 0;
+        }
+        if (count == 0)
+            return;
+        BufferUtils.copy(data, petBufferData, count * FLOATS_PER_PET, 0);
+
+        GL30 gl = Gdx.gl30;
+        if (vertexArray == 0)
+            createBuffers(gl);
+        float atlasWidth = columns * (cellWidth + 2 * PADDING);
+        float atlasHeight = rows * (cellHeight + 2 * PADDING);
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", projection);
+        shader.setUniformf("u_size", frameWidth, frameHeight);
+        shader.setUniformf("u_pitch", (cellWidth + 2 * PADDING) / atlasWidth, (cellHeight + 2 * PADDING) / atlasHeight);
+        shader.setUniformf("u_inset", PADDING / atlasWidth, PADDING / atlasHeight);
+        shader.setUniformf("u_frame", cellWidth / atlasWidth, cellHeight / atlasHeight);
+        shader.setUniformf("u_columns", columns);
+        shader.setUniformi("u_texture", 0);
+        atlas.getColorBufferTexture().bind(0);
+
+        gl.glEnable(GL20.GL_BLEND);
+        gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glBindVertexArray(vertexArray);
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, petBuffer);
+        // A fresh store every frame, so the driver never waits for last frame's draw to finish with it
+        gl.glBufferData(GL20.GL_ARRAY_BUFFER, count * FLOATS_PER_PET * 4, petBufferData, GL20.GL_STREAM_DRAW);
+        gl.glDrawArraysInstanced(GL20.GL_TRIANGLE_STRIP, 0, 4, count);
+        gl.glBindVertexArray(0);
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    }
+
+    private void createBuffers(GL30 gl) {
+        gl.glGenVertexArrays(1, handle, 0);
+        vertexArray = handle[0];
+        gl.glBindVertexArray(vertexArray);
+
+        cornerBuffer = gl.glGenBuffer();
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, cornerBuffer);
+        FloatBuffer corners = BufferUtils.newFloatBuffer(8);
+        BufferUtils.copy(new float[] { 0, 0, 1, 0, 0, 1, 1, 1 }, corners, 8, 0);
+        gl.glBufferData(GL20.GL_ARRAY_BUFFER, 8 * 4, corners, GL20.GL_STATIC_DRAW);
+        int corner = shader.getAttributeLocation("a_corner");
+        gl.glEnableVertexAttribArray(corner);
+        gl.glVertexAttribPointer(corner, 2, GL20.GL_FLOAT, false, 0, 0);
+
+        petBuffer = gl.glGenBuffer();
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, petBuffer);
+        int pet = shader.getAttributeLocation("a_pet");
+        gl.glEnableVertexAttribArray(pet);
+        gl.glVertexAttribPointer(pet, FLOATS_PER_PET, GL20.GL_FLOAT, false, FLOATS_PER_PET * 4, 0);
+        gl.glVertexAttribDivisor(pet, 1);
+
+        gl.glBindVertexArray(0);
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+    }
+
+    private void drawOthers(Batch batch) {
+        for (int i = 0; i < others.size; i++) {
+            PetSnapshot pet = others.get(i);
+            TextureRegion frame = pet.getCurrentFrame();
+            float width = frame.getRegionWidth() * Pet.DRAW_SCALE;
+            float height = frame.getRegionHeight() * Pet.DRAW_SCALE;
+            Vector2 position = pet.getPosition();
+            float x = position.x - width / 2f;
+            // A negative width mirrors the quad, the frame itself is shared and stays as it is
+            if (pet.isFacingLeft())
+                batch.draw(frame, x + width, position.y - height / 2f, -width, height);
+            else
+                batch.draw(frame, x, position.y - height / 2f, width, height);
+        }
+    }
+
+    private int frameOf(PetSnapshot pet) {
+        Animation<TextureRegion> animation = pet.getAnimation();
+        if (animation == null)
+            return -1;
+        int first = firstFrames.get(animation, -1);
+        return first < 0 ? -1 : first + pet.getFrameIndex();
+    }
+
+    @Override
+    public void dispose() {
+        if (atlas != null)
+            atlas.dispose();
+        if (shader != null)
+            shader.dispose();
+        if (vertexArray != 0) {
+            GL30 gl = Gdx.gl30;
+            handle[0] = vertexArray;
+            gl.glDeleteVertexArrays(1, handle, 0);
+            gl.glDeleteBuffer(cornerBuffer);
+            gl.glDeleteBuffer(petBuffer);
+            vertexArray = 0;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.throng.game.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+/**
+ * Renders the world into an offscreen buffer at a fraction of the screen resolution and upscales it, with the
+ * fraction following the measured frame time: it steps down when frames run over the target and creeps back up
+ * once they have been on target for a while. GLES2 has no GPU timer queries, so the frame time is the signal: a
+ * GPU-bound frame shows up as a missed vsync. At full scale the buffer is skipped and the world draws straight to
+ * the screen, so it costs nothing until frames start missing.
+ * <p>
+ * Usage per frame: {@link #update}, then the world between {@link #begin} and {@link #end}; UI drawn after that
+ * stays at native resolution.
+ */
+public class DynamicResolution implements Disposable {
+    private static final float MIN_SCALE = 0.5f;
+    private static final float MAX_SCALE = 1f;
+    private static final float STEP = 0.1f;
+    private static final int WINDOW_FRAMES = 30;
+    private static final float OVER_BUDGET = 1.2f;
+    private static final float ON_BUDGET = 1.05f;
+    private static final float MIN_RAISE_WAIT = 3f;
+    private static final float MAX_RAISE_WAIT = 30f;
+    // Longer gaps are pauses, loading or idle rendering, not GPU load
+    private static final float MAX_SAMPLE_DELTA = 0.25f;
+
+    private final Matrix4 screenProjection = new Matrix4();
+    private float targetFrameTime = 1 / 60f;
+    private boolean enabled = true;
+    private float scale = MAX_SCALE;
+
+    private float windowTime;
+    private int windowFrames;
+    private float onBudgetTime;
+    private float raiseWait = MIN_RAISE_WAIT;
+    private boolean lastChangeWasRaise;
+
+    private FrameBuffer frameBuffer;
+    private final TextureRegion frameRegion = new TextureRegion();
+    private Viewport viewport;
+    private boolean drawing;
+
+    public void setTargetFps(int fps) {
+        targetFrameTime = 1f / fps;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled)
+            scale = MAX_SCALE;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    /** Feeds one frame's delta to the controller. Skip it for frames that did not run at the normal rate. */
+    public void update(float delta) {
+        if (!enabled || delta > MAX_SAMPLE_DELTA)
+            return;
+        windowTime += delta;
+        if (++windowFrames < WINDOW_FRAMES)
+            return;
+
+        float average = windowTime / windowFrames;
+        float window = windowTime;
+        windowTime = 0;
+        windowFrames = 0;
+
+        if (average > targetFrameTime * OVER_BUDGET && scale > MIN_SCALE) {
+            // A drop right after a raise means the raise did not fit, so wait longer before the next one
+            raiseWait = lastChangeWasRaise ? Math.min(raiseWait * 2f, MAX_RAISE_WAIT) : raiseWait;
+            setScale(scale - STEP);
+            lastChangeWasRaise = false;
+            onBudgetTime = 0;
+        } else if (average < targetFrameTime * ON_BUDGET) {
+            onBudgetTime += window;
+            if (onBudgetTime >= raiseWait && scale < MAX_SCALE) {
+                setScale(scale + STEP);
+                lastChangeWasRaise = true;
+                onBudgetTime = 0;
+            }
+        } else {
+            onBudgetTime = 0;
+        }
+    }
+
+    private void setScale(float scale) {
+        // Snapped to whole steps, so there are only a handful of buffer sizes
+        this.scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, Math.round(scale / STEP) * STEP));
+        Gdx.app.debug("DynamicResolution", "scale " + this.scale);
+    }
+
+    /** Redirects drawing into the scaled buffer, sized from the viewport's screen area. */
+    public void begin(Viewport viewport) {
+        this.viewport = viewport;
+        drawing = scale < MAX_SCALE;
+        if (!drawing)
+            return;
+
+        int width = Math.max(1, Math.round(viewport.getScreenWidth() * scale));
+        int height = Math.max(1, Math.round(viewport.getScreenHeight() * scale));
+        if (frameBuffer == null || frameBuffer.getWidth() != width || frameBuffer.getHeight() != height) {
+            if (frameBuffer != null)
+                frameBuffer.dispose();
+            frameBuffer = new FrameBuffer(Pixmap.Format.RGB888, width, height, false);
+            Texture texture = frameBuffer.getColorBufferTexture();
+            texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+            TextureRegistry.get().track(texture, TextureRegistry.Priority.VISIBLE);
+            frameRegion.setRegion(texture);
+            // Frame buffer textures are upside down
+            frameRegion.flip(false, true);
+        }
+        frameBuffer.begin();
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+    }
+
+    /** Ends the buffer and draws it upscaled over the viewport's screen area. The batch must not be drawing. */
+    public void end(Batch batch) {
+        if (!drawing)
+            return;
+        frameBuffer.end();
+        // The GL viewport is the screen area again, so the buffer fills it exactly
+        viewport.apply();
+        screenProjection.setToOrtho2D(0, 0, viewport.getScreenWidth(), viewport.getScreenHeight());
+        batch.setProjectionMatrix(screenProjection);
+        batch.disableBlending();
+        batch.begin();
+        batch.draw(frameRegion, 0, 0, viewport.getScreenWidth(), viewport.getScreenHeight());
+        batch.end();
+        batch.enableBlending();
+    }
+
+    @Override
+    public void dispose() {
+        if (frameBuffer != null) {
+            frameBuffer.dispose();
+            frameBuffer = null;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.throng.game.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Accounts for every texture the game creates by size and format, and restores them quickly after the GL
+ * context is lost, which on Android happens whenever the app is backgrounded.
+ * <p>
+ * Normally libGDX reloads every managed texture from disk before the first frame after {@code resume}. For the
+ * pet animations that is close to a hundred PNG decodes, which takes seconds. Textures made here reload as a
+ * transparent 1x1 placeholder instead if the context was lost while paused. Then, in priority order, a
+ * background thread decodes the real images and {@link #update} uploads them within a per-frame budget.
+ * {@link #prioritize} moves a texture to the front, which is how the game screen gets the visible pets' animation
+ * back first. Textures made elsewhere, such as atlas pages or font pages, can be {@link #track tracked} for the
+ * accounting only and reload the usual way.
+ * <p>
+ * The memory budget is set by the launcher through {@link com.throng.game.ThrongGame#textureBudgetBytes}. It is
+ * advisory: nothing is refused or evicted, since every texture here is in use, but going over it is logged and the
+ * screen manager drops the screens that are not showing.
+ */
+public class TextureRegistry {
+    /** Restore order after a context loss, first to last. */
+    public enum Priority {
+        VISIBLE, UI, LAZY
+    }
+
+    // The pet animations alone are 87 frames of 900x900 RGBA, about 280 MB
+    public static final long DEFAULT_BUDGET_BYTES = 320L * 1024 * 1024;
+
+    private static final TextureRegistry instance = new TextureRegistry();
+
+    public static TextureRegistry get() {
+        return instance;
+    }
+
+    private final Array<Entry> entries = new Array<>(false, 128, Entry.class);
+    private long budgetBytes = DEFAULT_BUDGET_BYTES;
+    private boolean overBudget;
+    private boolean paused;
+    private int order;
+    private int contextLosses;
+
+    // Restore: decoded off the GL thread in priority order, uploaded by update()
+    private final PriorityBlockingQueue<Entry> decodeQueue = new PriorityBlockingQueue<>(64, new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            int byPriority = a.priority.compareTo(b.priority);
+            return byPriority != 0 ? byPriority : Integer.compare(a.order, b.order);
+        }
+    });
+    private final ConcurrentLinkedQueue<Entry> decoded = new ConcurrentLinkedQueue<>();
+    private Thread decoder;
+    private int restoring;
+    private Pixmap placeholder;
+
+    /**
+     * Texture data backed by a file, or by a pixmap kept in memory for small generated textures. While the
+     * registry is paused a reload serves the placeholder, and the real image comes back through the restore queue.
+     */
+    private final class Entry implements TextureData {
+        final FileHandle file;
+        final Pixmap kept;
+        final Pixmap.Format format;
+        final boolean mipMaps;
+        final int width, height;
+        Priority priority;
+        int order;
+        Texture texture;
+
+        private Pixmap initial;
+        private Pixmap prepared;
+        private boolean disposePrepared;
+        volatile Pixmap restored;
+        boolean placeholder;
+
+        Entry(FileHandle file, Pixmap pixmap, boolean keep, Priority priority) {
+            this.file = file;
+            this.kept = keep ? pixmap : null;
+            this.initial = keep ? null : pixmap;
+            this.format = pixmap.getFormat();
+            this.mipMaps = false;
+            this.width = pixmap.getWidth();
+            this.height = pixmap.getHeight();
+            this.priority = priority;
+        }
+
+        // Accounting only, the texture keeps its own data
+        Entry(Texture texture, Priority priority) {
+            this.file = null;
+            this.kept = null;
+            this.texture = texture;
+            this.format = texture.getTextureData().getFormat();
+            this.mipMaps = texture.getTextureData().useMipMaps();
+            this.width = texture.getWidth();
+            this.height = texture.getHeight();
+            this.priority = priority;
+        }
+
+        long bytes() {
+            long bytes = (long) width * height * bytesPerPixel(format);
+            // A full mip chain adds a third
+            return mipMaps ? bytes * 4 / 3 : bytes;
+        }
+
+        boolean disposed() {
+            return texture != null && texture.getTextureObjectHandle() == 0;
+        }
+
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Pixmap;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return prepared != null;
+        }
+
+        @Override
+        public void prepare() {
+            if (prepared != null)
+                throw new GdxRuntimeException("Already prepared");
+            disposePrepared = false;
+            if (initial != null) {
+                prepared = initial;
+                initial = null;
+                disposePrepared = true;
+            } else if (restored != null) {
+                prepared = restored;
+                restored = null;
+                disposePrepared = true;
+                placeholder = false;
+            } else if (kept != null) {
+                prepared = kept;
+                placeholder = false;
+            } else if (paused) {
+                // Context lost while paused: come back empty now, with the image through the restore queue
+                prepared = placeholder();
+                placeholder = true;
+            } else {
+                prepared = new Pixmap(file);
+                disposePrepared = true;
+                placeholder = false;
+            }
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            Pixmap pixmap = prepared;
+            prepared = null;
+            return pixmap;
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return disposePrepared;
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+            throw new GdxRuntimeException("Pixmap data, nothing custom to consume");
+        }
+
+        @Override
+        public int getWidth() {
+            return placeholder ? 1 : width;
+        }
+
+        @Override
+        public int getHeight() {
+            return placeholder ? 1 : height;
+        }
+
+        @Override
+        public Pixmap.Format getFormat() {
+            return placeholder ? Pixmap.Format.RGBA8888 : format;
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return false;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return true;
+        }
+    }
+
+    private static int bytesPerPixel(Pixmap.Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    private Pixmap placeholder() {
+        if (placeholder == null) {
+            placeholder = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+            placeholder.setColor(0, 0, 0, 0);
+            placeholder.fill();
+        }
+        return placeholder;
+    }
+
+    /** Loads the image at {@code file} into a texture that reloads fast after a context loss. */
+    public Texture load(FileHandle file, Priority priority) {
+        return upload(file, new Pixmap(file), priority);
+    }
+
+    /** As {@link #load}, for an image already decoded from {@code file}; the pixmap is disposed after the upload. */
+    public Texture upload(FileHandle file, Pixmap decoded, Priority priority) {
+        return add(new Entry(file, decoded, false, priority));
+    }
+
+    /**
+     * A texture of a generated image, such as a white pixel. The pixmap is kept, and owned, by the registry until
+     * the texture is disposed, so only use this for small images.
+     */
+    public Texture fromPixmap(Pixmap pixmap, Priority priority) {
+        return add(new Entry(null, pixmap, true, priority));
+    }
+
+    /**
+     * Data for a texture that another loader creates, such as the {@link com.badlogic.gdx.assets.AssetManager}
+     * through {@code TextureParameter.textureData}. Pass the texture to {@link #track} once it exists.
+     */
+    public TextureData data(FileHandle file, Priority priority) {
+        return new Entry(file, new Pixmap(file), false, priority);
+    }
+
+    private Texture add(Entry entry) {
+        Texture texture = new Texture(entry);
+        entry.texture = texture;
+        register(entry);
+        return texture;
+    }
+
+    /**
+     * Accounts for a texture created elsewhere. Textures made from {@link #data} join the fast restore, others
+     * only count towards the budget.
+     */
+    public void track(Texture texture, Priority priority) {
+        for (int i = 0; i < entries.size; i++) {
+            if (entries.get(i).texture == texture)
+                return;
+        }
+        TextureData data = texture.getTextureData();
+        if (data instanceof Entry) {
+            Entry entry = (Entry) data;
+            entry.texture = texture;
+            entry.priority = priority;
+            register(entry);
+        } else {
+            register(new Entry(texture, priority));
+        }
+    }
+
+    private void register(Entry entry) {
+        entry.order = order++;
+        entries.add(entry);
+        long used = getUsedBytes();
+        if (used > budgetBytes && !overBudget)
+            Gdx.app.error("TextureRegistry", "Texture memory over budget: " + used / (1024 * 1024) + " of "
+                    + budgetBytes / (1024 * 1024) + " MB");
+        overBudget = used > budgetBytes;
+    }
+
+    /** Bytes of texture memory held by live textures, dropping the ones disposed since the last call. */
+    public long getUsedBytes() {
+        long used = 0;
+        for (int i = entries.size - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.disposed()) {
+                entries.removeIndex(i);
+                if (entry.kept != null)
+                    entry.kept.dispose();
+                continue;
+            }
+            used += entry.bytes();
+        }
+        overBudget = used > budgetBytes;
+        return used;
+    }
+
+    public int getTextureCount() {
+        getUsedBytes();
+        return entries.size;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        getUsedBytes();
+    }
+
+    public boolean isOverBudget() {
+        return overBudget;
+    }
+
+    /** Call from the application's pause: a context lost from here on is restored through the queue. */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Call from the application's resume. If the context was lost, every texture is a placeholder by now; queues
+     * them for restore in priority order. Call {@link #prioritize} right after to move textures forward.
+     */
+    public void resume() {
+        paused = false;
+        boolean lost = false;
+        for (int i = 0; i < entries.size; i++) {
+            Entry entry = entries.get(i);
+            if (entry.placeholder && !entry.disposed()) {
+                decodeQueue.add(entry);
+                restoring++;
+                lost = true;
+            }
+        }
+        if (lost)
+            contextLosses++;
+        if (restoring > 0)
+            startDecoder();
+    }
+
+    /**
+     * Restores {@code texture} ahead of everything not prioritized, after what was prioritized before it. Does
+     * nothing unless it is waiting for restore.
+     */
+    public void prioritize(Texture texture) {
+        if (texture == null || !(texture.getTextureData() instanceof Entry))
+            return;
+        Entry entry = (Entry) texture.getTextureData();
+        if (entry.priority == Priority.VISIBLE || !decodeQueue.remove(entry))
+            return;
+        entry.priority = Priority.VISIBLE;
+        entry.order = order++;
+        decodeQueue.add(entry);
+    }
+
+    private void startDecoder() {
+        if (decoder != null)
+            return;
+        decoder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                decodeLoop();
+            }
+        }, "TextureRestore");
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+
+    private void decodeLoop() {
+        // Waits for the next context loss once the queue is empty
+        try {
+            while (true) {
+                Entry entry = decodeQueue.take();
+                if (entry.disposed()) {
+                    decoded.add(entry);
+                    continue;
+                }
+                try {
+                    entry.restored = new Pixmap(entry.file);
+                } catch (GdxRuntimeException e) {
+                    Gdx.app.error("TextureRegistry", "Could not restore " + entry.file, e);
+                }
+                decoded.add(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Uploads restored textures until {@code budgetNanos} is spent, at least one if any is ready. Call once per
+     * frame on the GL thread. Returns true if a texture changed or a restore is still in progress.
+     */
+    public boolean update(long budgetNanos) {
+        if (restoring == 0)
+            return false;
+        long start = System.nanoTime();
+        boolean uploaded = false;
+        Entry entry;
+        while ((entry = decoded.poll()) != null) {
+            restoring--;
+            if (entry.restored != null) {
+                if (entry.disposed()) {
+                    entry.restored.dispose();
+                    entry.restored = null;
+                } else {
+                    // Same handle, the regions pointing at it stay valid
+                    entry.texture.load(entry);
+                    uploaded = true;
+                }
+            }
+            if (System.nanoTime() - start >= budgetNanos)
+                break;
+        }
+        return uploaded || restoring > 0;
+    }
+
+    /** True while textures are still placeholders after a context loss. */
+    public boolean isRestoring() {
+        return restoring > 0;
+    }
+
+    /**
+     * How many times the context was lost while paused. Renderers holding GL objects that libGDX does not restore,
+     * or contents it restores empty, compare it with the count they last saw to know when to rebuild them.
+     */
+    public int getContextLosses() {
+        return contextLosses;
+    }
+}
@@ -1,36 +1,28 @@
 package com.throng.game.ui;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.scenes.scene2d.Actor;
-import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.*;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
-import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.throng.game.audio.AudioManager;
-import com.throng.game.entity.PetStatObserver;
+import com.throng.game.render.TextureRegistry;
 import com.badlogic.gdx.utils.Align;
 
-public class PetStatsUI implements PetStatObserver {
-    private final Table statusTable;
+// The stat bars themselves are drawn by StatBarRenderer, this is the row of action buttons
+public class PetStatsUI {
     private final Table buttonTable;
 
-    private ProgressBar hungerBar;
-    private ProgressBar happinessBar;
-    private ProgressBar energyBar;
-    private final Group floatingGroup;
-
-    private final float MAX_STAT = 100f;
-
-    private final ProgressBar.ProgressBarStyle hungerStyle;
-    private final ProgressBar.ProgressBarStyle happyStyle;
-    private final ProgressBar.ProgressBarStyle energyStyle;
-    private final Skin skin;
+    private static final String[] BUTTON_IMAGES = {
+            "feed", "feed_pressed", "play", "play_pressed", "sleep", "sleep_pressed" };
+    private TextureAtlas buttonAtlas;
+    private ImageButton playButton;
+    private ImageButton sleepButton;
 
     public interface PetActionListener {
         void onFeed();
@@ -40,20 +32,9 @@ public class PetStatsUI implements PetStatObserver {
         void onSleep();
     }
 
-    public PetStatsUI(Stage stage, Skin skin, PetActionListener listener) {
-        this.skin = skin;
-
-        hungerStyle = createModernBarStyle(Color.GREEN);
-        happyStyle = createModernBarStyle(Color.GREEN);
-        energyStyle = createModernBarStyle(Color.GREEN);
-
-        statusTable = buildStatusTable();
+    public PetStatsUI(Stage stage, PetActionListener listener) {
         buttonTable = buildButtonTable(listener);
 
-        floatingGroup = new Group();
-        floatingGroup.addActor(statusTable);
-        stage.addActor(floatingGroup);
-
         Table bottomTable = new Table();
         bottomTable.setFillParent(true);
         bottomTable.align(Align.bottom); // <-- Important
@@ -65,88 +46,26 @@ public class PetStatsUI implements PetStatObserver {
 
     }
 
-    private Table buildStatusTable() {
-        Table table = new Table();
-        table.top().center();
-
-        int boxSize = 32;
-        int barWidth = 40;
-        Label.LabelStyle labelStyle = new Label.LabelStyle(skin.getFont("default-font"), Color.WHITE);
-        labelStyle.font.getData().setScale(1.1f);
-
-        hungerBar = new ProgressBar(0, MAX_STAT, 1, true, hungerStyle);
-        happinessBar = new ProgressBar(0, MAX_STAT, 1, true, happyStyle);
-        energyBar = new ProgressBar(0, MAX_STAT, 1, true, energyStyle);
-        hungerBar.setValue(MAX_STAT);
-        happinessBar.setValue(MAX_STAT);
-        energyBar.setValue(MAX_STAT);
-
-        Stack hungerStack = new Stack();
-        hungerStack.add(hungerBar);
-        hungerStack.add(new Label("F", labelStyle));
-
-        Stack happyStack = new Stack();
-        happyStack.add(happinessBar);
-        happyStack.add(new Label("H", labelStyle));
-
-        Stack energyStack = new Stack();
-        energyStack.add(energyBar);
-        energyStack.add(new Label("E", labelStyle));
-
-        table.add(hungerStack).width(barWidth).height(boxSize).padRight(8);
-        table.add(happyStack).width(barWidth).height(boxSize).padRight(8);
-        table.add(energyStack).width(barWidth).height(boxSize);
-        table.center();
-
-        return table;
-    }
-
-    private ProgressBar.ProgressBarStyle createModernBarStyle(Color barColor) {
-        ProgressBar.ProgressBarStyle style = new ProgressBar.ProgressBarStyle();
-
-        Pixmap bgPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
-        bgPixmap.setColor(new Color(0.2f, 0.2f, 0.2f, 0.8f));
-        bgPixmap.fill();
-        style.background = new TextureRegionDrawable(new TextureRegion(new Texture(bgPixmap)));
-
-        Pixmap knobPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
-        knobPixmap.setColor(barColor);
-        knobPixmap.fill();
-        style.knobBefore = new TextureRegionDrawable(new TextureRegion(new Texture(knobPixmap)));
-
-        style.knob = null;
-        return style;
-    }
-
     private Table buildButtonTable(PetActionListener listener) {
         Table table = new Table();
 
-        // Load button textures
-        Texture feedTexture = new Texture(Gdx.files.internal(("buthrongs/feed.png")));
-        Texture feedPressedTexture = new Texture(Gdx.files.internal(("buthrongs/feed_pressed.png")));
-        Texture playTexture = new Texture(Gdx.files.internal("buthrongs/play.png"));
-        Texture playPressedTexture = new Texture(Gdx.files.internal("buthrongs/play_pressed.png"));
-        Texture sleepTexture = new Texture(Gdx.files.internal("buthrongs/sleep.png"));
-        Texture sleepPressedTexture = new Texture(Gdx.files.internal("buthrongs/sleep_pressed.png"));
-
-        // Create image buttons with pressed states
-        ImageButton.ImageButtonStyle feedStyle = new ImageButton.ImageButtonStyle();
-        feedStyle.imageUp = new TextureRegionDrawable(new TextureRegion(feedTexture));
-        feedStyle.imageDown = new TextureRegionDrawable(new TextureRegion(feedPressedTexture));
-        feedStyle.imageOver = new TextureRegionDrawable(new TextureRegion(feedPressedTexture));
-        ImageButton feedButton = new ImageButton(feedStyle);
-
-        ImageButton.ImageButtonStyle playStyle = new ImageButton.ImageButtonStyle();
-        playStyle.imageUp = new TextureRegionDrawable(new TextureRegion(playTexture));
-        playStyle.imageDown = new TextureRegionDrawable(new TextureRegion(playPressedTexture));
-        playStyle.imageOver = new TextureRegionDrawable(new TextureRegion(playPressedTexture));
-        ImageButton playButton = new ImageButton(playStyle);
-
-        ImageButton.ImageButtonStyle sleepStyle = new ImageButton.ImageButtonStyle();
-        sleepStyle.imageUp = new TextureRegionDrawable(new TextureRegion(sleepTexture));
-        sleepStyle.imageDown = new TextureRegionDrawable(new TextureRegion(sleepPressedTexture));
-        sleepStyle.imageOver = new TextureRegionDrawable(new TextureRegion(sleepPressedTexture));
-        ImageButton sleepButton = new ImageButton(sleepStyle);
+        // The six button images are packed into one page so the button row draws without texture switches
+        PixmapPacker buttonPacker = new PixmapPacker(1024, 1024, Pixmap.Format.RGBA8888, 2, false);
+        for (String name : BUTTON_IMAGES) {
+            Pixmap pixmap = new Pixmap(Gdx.files.internal("buthrongs/" + name + ".png"));
+            buttonPacker.pack(name, pixmap);
+            pixmap.dispose();
+        }
+        buttonAtlas = buttonPacker.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest,
+                false);
+        buttonPacker.dispose();
+        for (Texture page : buttonAtlas.getTextures()) {
+            TextureRegistry.get().track(page, TextureRegistry.Priority.UI);
+        }
+
+        ImageButton feedButton = new ImageButton(createButtonStyle("feed"));
+        playButton = new ImageButton(createButtonStyle("play"));
+        sleepButton = new ImageButton(createButtonStyle("sleep"));
 
         // Add listeners
         feedButton.addListener(new ChangeListener() {
@@ -179,38 +98,33 @@ public class PetStatsUI implements PetStatObserver {
         return table;
     }
 
-    @Override
-    public void updateBars(float hunger, float happiness, float energy) {
-        try {
-            updateBarColor(hungerBar, hunger, hungerStyle);
-            updateBarColor(happinessBar, happiness, happyStyle);
-            updateBarColor(energyBar, energy, energyStyle);
-            hungerBar.setValue(hunger);
-            happinessBar.setValue(happiness);
-            energyBar.setValue(energy);
-        } catch (Exception e) {
-            System.err.println("[UI ERROR] updateBars crashed: " + e.getMessage());
-        }
+    private ImageButton.ImageButtonStyle createButtonStyle(String name) {
+        ImageButton.ImageButtonStyle style = new ImageButton.ImageButtonStyle();
+        style.imageUp = new TextureRegionDrawable(buttonAtlas.findRegion(name));
+        style.imageDown = new TextureRegionDrawable(buttonAtlas.findRegion(name + "_pressed"));
+        style.imageOver = style.imageDown;
+        return style;
     }
 
-    private void updateBarColor(ProgressBar bar, float value, ProgressBar.ProgressBarStyle style) {
-        Color color = (value > 66) ? Color.GREEN : (value > 33) ? Color.YELLOW : Color.RED;
-        Pixmap knobPixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
-        knobPixmap.setColor(color);
-        knobPixmap.fill();
-        style.knobBefore = new TextureRegionDrawable(new TextureRegion(new Texture(knobPixmap)));
-        bar.setStyle(style);
+    /**
+     * Greys out play and sleep, which the pet ignores while it is playing, sleeping or eating. Feeding still drops a
+     * fruit, so it stays.
+     */
+    public void setBusy(boolean busy) {
+        setEnabled(playButton, !busy);
+        setEnabled(sleepButton, !busy);
     }
 
-    public Table getStatusTable() {
-        return statusTable;
+    private static void setEnabled(ImageButton button, boolean enabled) {
+        button.setDisabled(!enabled);
+        button.getColor().a = enabled ? 1f : 0.5f;
     }
 
     public Table getActionButtonTable() {
         return buttonTable;
     }
 
-    public Group getFloatingGroup() {
-        return floatingGroup;
+    public void dispose() {
+        buttonAtlas.dispose();
     }
 }
@@ -0,0 +1,41 @@
+package com.throng.game.ui;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.ui.ImageButton;
+import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
+import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
+import com.throng.game.audio.AudioManager;
+
+public class SoundToggleButton extends ImageButton {
+    private final TextureRegionDrawable soundOnDefault;
+    private final TextureRegionDrawable soundOnHover;
+    private final TextureRegionDrawable soundOffDefault;
+    private final TextureRegionDrawable soundOffHover;
+
+    public SoundToggleButton(Texture soundOnDefault, Texture soundOnHover, Texture soundOffDefault,
+            Texture soundOffHover) {
+        super(new ImageButtonStyle());
+        this.soundOnDefault = new TextureRegionDrawable(soundOnDefault);
+        this.soundOnHover = new TextureRegionDrawable(soundOnHover);
+        this.soundOffDefault = new TextureRegionDrawable(soundOffDefault);
+        this.soundOffHover = new TextureRegionDrawable(soundOffHover);
+        refresh();
+
+        addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                AudioManager.getInstance().toggleMute();
+                refresh();
+            }
+        });
+    }
+
+    // Screens stay cached, so the mute state may have been toggled on another screen since this one was built.
+    public void refresh() {
+        boolean muted = AudioManager.getInstance().isMuted();
+        getStyle().imageUp = muted ? soundOffDefault : soundOnDefault;
+        getStyle().imageDown = muted ? soundOffHover : soundOnHover;
+        getStyle().imageOver = muted ? soundOffHover : soundOnHover;
+    }
+}
@@ -0,0 +1,95 @@
+package com.throng.game.ui;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.throng.game.entity.PetSnapshot;
+import com.throng.game.render.TextureRegistry;
+import com.throng.game.world.EventBus;
+
+/**
+ * Draws the hunger, happiness and energy bars above every pet straight into the world batch. All bars come from
+ * one white pixel tinted per vertex and all letters from one {@link BitmapFontCache} moved from pet to pet, so a
+ * crowd costs two texture switches in total and no scene2d layout. A bar's colour is its value's
+ * {@link EventBus#band}, taken from the same snapshot as its height so the two always agree.
+ */
+public class StatBarRenderer implements Disposable {
+    private static final float MAX_STAT = 100f;
+    private static final float BAR_WIDTH = 40f;
+    private static final float BAR_HEIGHT = 32f;
+    private static final float BAR_GAP = 8f;
+    private static final float OFFSET_Y = 100f;
+    private static final float TOTAL_WIDTH = 3 * BAR_WIDTH + 2 * BAR_GAP;
+    private static final String[] LETTERS = { "F", "H", "E" };
+
+    private static final float BACKGROUND = new Color(0.2f, 0.2f, 0.2f, 0.8f).toFloatBits();
+    private static final float GREEN = Color.GREEN.toFloatBits();
+    private static final float YELLOW = Color.YELLOW.toFloatBits();
+    private static final float RED = Color.RED.toFloatBits();
+
+    private final Texture whitePixel;
+    private final TextureRegion white;
+    private final BitmapFontCache letters;
+
+    public StatBarRenderer(BitmapFont font) {
+        Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fill();
+        // Kept by the registry, so the pixel survives a context loss
+        whitePixel = TextureRegistry.get().fromPixmap(pixmap, TextureRegistry.Priority.UI);
+        white = new TextureRegion(whitePixel);
+
+        // Laid out once relative to the bars' bottom left corner, then only translated
+        letters = font.newFontCache();
+        letters.setColor(Color.WHITE);
+        float letterY = (BAR_HEIGHT + font.getCapHeight()) / 2f;
+        for (int i = 0; i < LETTERS.length; i++) {
+            letters.addText(LETTERS[i], i * (BAR_WIDTH + BAR_GAP), letterY);
+        }
+    }
+
+    /** Draws between {@code batch.begin()} and {@code batch.end()}; leaves the batch colour as it found it. */
+    public void render(Batch batch, Array<PetSnapshot> pets) {
+        float previousColor = batch.getPackedColor();
+
+        for (int i = 0; i < pets.size; i++) {
+            PetSnapshot pet = pets.get(i);
+            float left = pet.getPosition().x - TOTAL_WIDTH / 2f;
+            float bottom = pet.getPosition().y + OFFSET_Y - BAR_HEIGHT / 2f;
+            drawBar(batch, left, bottom, pet.getHunger());
+            drawBar(batch, left + BAR_WIDTH + BAR_GAP, bottom, pet.getHappiness());
+            drawBar(batch, left + 2 * (BAR_WIDTH + BAR_GAP), bottom, pet.getEnergy());
+        }
+        batch.setPackedColor(previousColor);
+
+        // Letters after all bars, so the batch switches to the font texture once
+        for (int i = 0; i < pets.size; i++) {
+            PetSnapshot pet = pets.get(i);
+            letters.setPosition(pet.getPosition().x - TOTAL_WIDTH / 2f,
+                    pet.getPosition().y + OFFSET_Y - BAR_HEIGHT / 2f);
+            letters.draw(batch);
+        }
+    }
+
+    private void drawBar(Batch batch, float x, float y, float value) {
+        batch.setPackedColor(BACKGROUND);
+        batch.draw(white, x, y, BAR_WIDTH, BAR_HEIGHT);
+        float fill = Math.max(0f, Math.min(value / MAX_STAT, 1f)) * BAR_HEIGHT;
+        if (fill > 0f) {
+            int band = EventBus.band(value);
+            batch.setPackedColor(band == 2 ? GREEN : band == 1 ? YELLOW : RED);
+            batch.draw(white, x, y, BAR_WIDTH, fill);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        whitePixel.dispose();
+    }
+}
@@ -0,0 +1,52 @@
+package com.throng.game.world;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer ring of small fixed-shape commands: a type, a target index and two
+ * floats. The producer (the render thread, where input arrives) and the consumer (the simulation) each own one
+ * counter and only publish it with an ordered store, so neither side ever locks or allocates.
+ */
+class CommandQueue {
+    interface Handler {
+        void handle(int type, int target, float x, float y);
+    }
+
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] types = new int[CAPACITY];
+    private final int[] targets = new int[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    // Next slot to read, written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Producer side. False when the consumer has fallen a full ring behind. */
+    boolean offer(int type, int target, float x, float y) {
+        long t = tail.get();
+        if (t - head.get() == CAPACITY)
+            return false;
+        int slot = (int) t & MASK;
+        types[slot] = type;
+        targets[slot] = target;
+        xs[slot] = x;
+        ys[slot] = y;
+        // Ordered after the slot writes, so the consumer never sees a half written command
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Consumer side. Hands every queued command to the handler in order. */
+    void drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (; h < t; h++) {
+            int slot = (int) h & MASK;
+            handler.handle(types[slot], targets[slot], xs[slot], ys[slot]);
+        }
+        head.lazySet(h);
+    }
+}
@@ -0,0 +1,72 @@
+package com.throng.game.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.entity.Pet;
+
+/**
+ * Decides how much work each pet gets per step from the part of the world on screen, so that a crowd costs what is
+ * visible of it rather than its size:
+ * <ul>
+ * <li>pets in view animate at their full frame rate, unless they are drawn small or come after the first
+ * {@link #FULL_DETAIL_PETS} in view, which hold each frame twice as long;</li>
+ * <li>pets out of view skip frame selection and are time-sliced: only about {@link #OFF_SCREEN_UPDATES_PER_STEP} of
+ * them are updated per step, round robin, each with the time since its last update.</li>
+ * </ul>
+ * The budget counts updates rather than nanoseconds, so a step stays deterministic and replays the same. Until a
+ * view is set every pet counts as in view, which is how the server and the headless tools run.
+ */
+public class CrowdLod {
+    // Past the edges of the view; covers half a pet sprite and the stat bars drawn above it
+    static final float VIEW_MARGIN = 200f;
+    // Pets drawn shorter than this many screen pixels animate at the reduced rate
+    static final float SMALL_PIXELS = 64f;
+    static final int FULL_DETAIL_PETS = 256;
+    static final int OFF_SCREEN_UPDATES_PER_STEP = 128;
+
+    private boolean hasView;
+    private float viewX, viewY, viewWidth, viewHeight;
+    private float pixelsPerUnit = 1f;
+
+    // Per step
+    private int step;
+    private int period = 1;
+    private int inView;
+
+    /** The bottom left corner of the view in world units. */
+    public void setViewOrigin(float x, float y) {
+        viewX = x;
+        viewY = y;
+        hasView = true;
+    }
+
+    /** The view's size in world units, and its width on screen in pixels. */
+    public void setViewSize(float width, float height, int screenWidth) {
+        viewWidth = width;
+        viewHeight = height;
+        pixelsPerUnit = width > 0 ? screenWidth / width : 1f;
+        hasView = true;
+    }
+
+    void begin(int pets) {
+        step++;
+        period = Math.max(1, (pets + OFF_SCREEN_UPDATES_PER_STEP - 1) / OFF_SCREEN_UPDATES_PER_STEP);
+        inView = 0;
+    }
+
+    Pet.Detail detail(Pet pet) {
+        if (!hasView)
+            return Pet.Detail.FULL;
+        Vector2 position = pet.getPosition();
+        if (position.x < viewX - VIEW_MARGIN || position.x > viewX + viewWidth + VIEW_MARGIN
+                || position.y < viewY - VIEW_MARGIN || position.y > viewY + viewHeight + VIEW_MARGIN)
+            return Pet.Detail.HIDDEN;
+        if (++inView > FULL_DETAIL_PETS || pet.getDrawnHeight() * pixelsPerUnit < SMALL_PIXELS)
+            return Pet.Detail.REDUCED;
+        return Pet.Detail.FULL;
+    }
+
+    // Each out of view pet is updated once every period steps, spread evenly over the steps
+    boolean isDue(int index, Pet.Detail detail) {
+        return detail != Pet.Detail.HIDDEN || (index + step) % period == 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.throng.game.world;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring of small fixed-shape events published by the simulation and read by any number of subscribers, each
+ * at its own pace and on its own thread. An event is a type, a pet index, one int and two floats, whose meaning
+ * depends on the type:
+ * <ul>
+ * <li>{@link #ATE}: the pet ate the fruit at (x, y);</li>
+ * <li>{@link #STATE_CHANGED}: the pet at (x, y) is now in the state with ordinal {@code detail};</li>
+ * <li>{@link #STAT_THRESHOLD}: stat {@code detail} ({@link #HUNGER}, {@link #HAPPINESS} or {@link #ENERGY}) is now
+ * x, on the other side of threshold y ({@link #LOW_STAT} or {@link #HIGH_STAT}) than it was;</li>
+ * <li>{@link #FRUIT_SPAWNED}: feeding the pet dropped a fruit at (x, y).</li>
+ * </ul>
+ * A new pet counts as idle with every stat above {@link #HIGH_STAT}; adding one that is not publishes the
+ * difference, so subscribers that are there before the pets can follow all of them from events alone.
+ * Like the {@link CommandQueue} every side owns one counter and publishes it with an ordered store, so nothing locks
+ * or allocates. The producer never waits: when the slowest subscriber is a full ring behind, new events are dropped
+ * and counted. Without subscribers the ring just wraps.
+ */
+public class EventBus {
+    public interface Handler {
+        void onEvent(int type, int pet, int detail, float x, float y);
+    }
+
+    public static final int ATE = 0;
+    public static final int STATE_CHANGED = 1;
+    public static final int STAT_THRESHOLD = 2;
+    public static final int FRUIT_SPAWNED = 3;
+
+    public static final int HUNGER = 0;
+    public static final int HAPPINESS = 1;
+    public static final int ENERGY = 2;
+    // Where the stat bars turn yellow and red
+    public static final float HIGH_STAT = 66f;
+    public static final float LOW_STAT = 33f;
+
+    /** 0 up to {@link #LOW_STAT}, 1 up to {@link #HIGH_STAT}, 2 above: the bar colour a stat is drawn in. */
+    public static int band(float value) {
+        return value > HIGH_STAT ? 2 : value > LOW_STAT ? 1 : 0;
+    }
+
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] types = new int[CAPACITY];
+    private final int[] pets = new int[CAPACITY];
+    private final int[] details = new int[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    // Next slot to write, written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+    // Replaced whole on subscribe and close, so the producer reads it without a lock
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    // Producer side: no subscriber was behind this when last looked at
+    private long slowest;
+    private long dropped;
+
+    /** One reader's position in the ring. Drain it from one thread only. */
+    public final class Subscription {
+        // Next slot to read
+        private final AtomicLong head;
+
+        private Subscription(long head) {
+            this.head = new AtomicLong(head);
+        }
+
+        /** Hands every event published since the last call to the handler, in order, and returns how many. */
+        public int drain(Handler handler) {
+            long h = head.get();
+            long t = tail.get();
+            for (; h < t; h++) {
+                int slot = (int) h & MASK;
+                handler.onEvent(types[slot], pets[slot], details[slot], xs[slot], ys[slot]);
+            }
+            int count = (int) (h - head.get());
+            head.lazySet(h);
+            return count;
+        }
+
+        /** Stops holding back the producer. */
+        public void close() {
+            unsubscribe(this);
+        }
+    }
+
+    /** A subscription that sees the events published from now on. Any thread. */
+    public synchronized Subscription subscribe() {
+        Subscription subscription = new Subscription(tail.get());
+        Subscription[] current = subscriptions;
+        Subscription[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = subscription;
+        subscriptions = next;
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] next = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                subscriptions = next;
+                return;
+            }
+        }
+    }
+
+    /** Producer side, the simulation thread. False when a subscriber has fallen a full ring behind. */
+    public boolean publish(int type, int pet, int detail, float x, float y) {
+        long t = tail.get();
+        if (t - slowest >= CAPACITY) {
+            slowest = slowestHead(t);
+            if (t - slowest >= CAPACITY) {
+                dropped++;
+                return false;
+            }
+        }
+        int slot = (int) t & MASK;
+        types[slot] = type;
+        pets[slot] = pet;
+        details[slot] = detail;
+        xs[slot] = x;
+        ys[slot] = y;
+        // Ordered after the slot writes, so a subscriber never sees a half written event
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    private long slowestHead(long t) {
+        long min = t;
+        for (Subscription subscription : subscriptions) {
+            min = Math.min(min, subscription.head.get());
+        }
+        return min;
+    }
+
+    /** Events the producer could not publish because a subscriber was too far behind. Producer side. */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,147 @@
+package com.throng.game.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.throng.game.debug.Telemetry;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetStats;
+
+/**
+ * The simulation side of the game: pets, the fruits lying around and what happens
+ * when they meet. Knows nothing about rendering or input, so it can also be driven headless;
+ * what happens is published on its {@link EventBus} for whoever listens.
+ */
+public class GameWorld {
+    private final Array<Pet> pets = new Array<>();
+    private final Array<Fruit> fruits = new Array<>();
+    private final PetStats stats = new PetStats(16);
+    // The pet whose stats are in each slot of stats
+    private final Array<Pet> bySlot = new Array<>();
+    private final CrowdLod lod = new CrowdLod();
+    private final EventBus events = new EventBus();
+    // Per pet, the state ordinal and the band of each stat as last published, see reported()
+    private final IntArray reported = new IntArray();
+
+    public void update(float delta, float worldWidth, float worldHeight) {
+        updatePets(delta, worldWidth, worldHeight);
+        checkFruitCollision();
+    }
+
+    public void updatePets(float delta, float worldWidth, float worldHeight) {
+        // Every pet's stats in one pass, out of view or not, and the timed actions that ran out end in the same
+        // step, so stats never depend on when a pet is next due
+        stats.step(delta);
+        for (int k = 0; k < stats.getFinishedCount(); k++) {
+            bySlot.get(stats.getFinished(k)).endTimedAction();
+        }
+        lod.begin(pets.size);
+        for (int i = 0; i < pets.size; i++) {
+            Pet pet = pets.get(i);
+            Pet.Detail detail = lod.detail(pet);
+            pet.update(delta, worldWidth, worldHeight, detail, lod.isDue(i, detail));
+            publishChanges(i, pet);
+        }
+    }
+
+    private void publishChanges(int index, Pet pet) {
+        int now = reported(pet);
+        int before = reported.items[index];
+        if (now == before)
+            return;
+        reported.items[index] = now;
+        if ((now & 7) != (before & 7))
+            events.publish(EventBus.STATE_CHANGED, index, now & 7, pet.getPosition().x, pet.getPosition().y);
+        publishThresholds(index, EventBus.HUNGER, pet.getHunger(), before >> 3 & 3, now >> 3 & 3);
+        publishThresholds(index, EventBus.HAPPINESS, pet.getHappiness(), before >> 5 & 3, now >> 5 & 3);
+        publishThresholds(index, EventBus.ENERGY, pet.getEnergy(), before >> 7 & 3, now >> 7 & 3);
+    }
+
+    // One event per threshold between the two bands, a meal can jump from red to green
+    private void publishThresholds(int index, int stat, float value, int before, int now) {
+        if (before == now)
+            return;
+        if (Math.min(before, now) == 0)
+            events.publish(EventBus.STAT_THRESHOLD, index, stat, value, EventBus.LOW_STAT);
+        if (Math.max(before, now) == 2)
+            events.publish(EventBus.STAT_THRESHOLD, index, stat, value, EventBus.HIGH_STAT);
+    }
+
+    // The state ordinal in the low 3 bits, then 2 bits per stat: 0 up to LOW_STAT, 1 up to HIGH_STAT, 2 above
+    private static int reported(Pet pet) {
+        return pet.getState().ordinal() | EventBus.band(pet.getHunger()) << 3
+                | EventBus.band(pet.getHappiness()) << 5 | EventBus.band(pet.getEnergy()) << 7;
+    }
+
+    public void checkFruitCollision() {
+        Object collision = Telemetry.get().beginCollision();
+        int fruitCount = fruits.size;
+        int eaten = 0;
+        for (int p = 0; p < pets.size; p++) {
+            Pet pet = pets.get(p);
+            for (int i = fruits.size - 1; i >= 0; i--) {
+                Fruit fruit = fruits.get(i);
+                try {
+                    if (fruit != null && pet.overlaps(fruit.getBounds())) {
+                        pet.eat();
+                        events.publish(EventBus.ATE, p, 0, fruit.getPosition().x, fruit.getPosition().y);
+                        fruit.dispose();
+                        fruits.removeIndex(i);
+                        eaten++;
+                    }
+                } catch (Exception e) {
+                    Gdx.app.error("Collision", "Error during fruit collision: " + e.getMessage(), e);
+                }
+            }
+        }
+        Telemetry.get().endCollision(collision, pets.size, fruitCount, eaten);
+    }
+
+    public void addPet(Pet pet) {
+        int slot = pet.moveStats(stats);
+        if (slot >= bySlot.size)
+            bySlot.setSize(slot + 1);
+        bySlot.set(slot, pet);
+        pets.add(pet);
+        // As if idle with every stat above both thresholds, which subscribers assume of a new pet
+        reported.add(Pet.PetState.IDLE.ordinal() | 2 << 3 | 2 << 5 | 2 << 7);
+        publishChanges(pets.size - 1, pet);
+    }
+
+    public void addFruit(Fruit fruit) {
+        fruits.add(fruit);
+    }
+
+    public Array<Pet> getPets() {
+        return pets;
+    }
+
+    public Array<Fruit> getFruits() {
+        return fruits;
+    }
+
+    /** How much each pet is animated and how often it is updated, from the view set on it. */
+    public CrowdLod getLod() {
+        return lod;
+    }
+
+    /** Where the world publishes what happens in it; only the thread stepping the world publishes. */
+    public EventBus getEvents() {
+        return events;
+    }
+
+    public void dispose() {
+        for (Pet pet : pets) {
+            pet.dispose();
+        }
+        pets.clear();
+        stats.clear();
+        bySlot.clear();
+        reported.clear();
+        for (Fruit fruit : fruits) {
+            fruit.dispose();
+        }
+        fruits.clear();
+    }
+}
@@ -0,0 +1,45 @@
+package com.throng.game.world;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Feeds an {@link InputRecording} back into an inline {@link Simulation}, one recorded step per call:
+ * <pre>
+ * InputPlayer player = new InputPlayer(recording, simulation);
+ * while (player.hasNext())
+ *     simulation.update(player.next());
+ * </pre>
+ * The world must start as the recorded one did: the same pets in the same places, in a world of the recorded size.
+ * Creating the player reseeds {@link MathUtils#random} with the recorded seed, so nothing else may draw from it
+ * until the replay is over.
+ */
+public class InputPlayer {
+    private final InputRecording recording;
+    private final Simulation simulation;
+    private int step;
+    private int command;
+
+    public InputPlayer(InputRecording recording, Simulation simulation) {
+        this.recording = recording;
+        this.simulation = simulation;
+        MathUtils.random.setSeed(recording.seed);
+    }
+
+    public boolean hasNext() {
+        return step < recording.deltas.size;
+    }
+
+    /** Queues the commands applied in the next recorded step and returns the delta to step the simulation by. */
+    public float next() {
+        while (command < recording.commandSteps.size && recording.commandSteps.get(command) == step) {
+            simulation.send(recording.commandTypes.get(command), recording.commandTargets.get(command),
+                    recording.commandXs.get(command), recording.commandYs.get(command));
+            command++;
+        }
+        return recording.deltas.get(step++);
+    }
+
+    public int getStep() {
+        return step;
+    }
+}
@@ -0,0 +1,165 @@
+package com.throng.game.world;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.throng.game.entity.Pet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Every input a {@link Simulation} applied, by step, with the delta of each step and the seed the pets' random
+ * behaviour started from. WASD, drags and the buttons all reach the world as simulation commands, so recording
+ * them where they are applied captures the whole session exactly as it played, on either thread. Replayed by an
+ * {@link InputPlayer} into a world set up the same way, the session reproduces step for step, which makes it a
+ * repeatable workload for before and after comparisons.
+ * <p>
+ * A checksum of the world at the end is saved with the inputs, so a replay can tell whether it diverged.
+ */
+public class InputRecording {
+    private static final int MAGIC = 0x54485245; // "THRE"
+    private static final int VERSION = 1;
+
+    final long seed;
+    final float worldWidth, worldHeight;
+    final FloatArray deltas = new FloatArray();
+    // One entry per command, in the order they were applied
+    final IntArray commandSteps = new IntArray();
+    final IntArray commandTypes = new IntArray();
+    final IntArray commandTargets = new IntArray();
+    final FloatArray commandXs = new FloatArray();
+    final FloatArray commandYs = new FloatArray();
+    private int checksum;
+
+    /** An empty recording for a world of this size; pass it to {@link Simulation#record} before the first step. */
+    public InputRecording(float worldWidth, float worldHeight) {
+        this(System.nanoTime(), worldWidth, worldHeight);
+    }
+
+    private InputRecording(long seed, float worldWidth, float worldHeight) {
+        this.seed = seed;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+    }
+
+    // Simulation side, called from step()
+    void beginStep(float delta) {
+        deltas.add(delta);
+    }
+
+    void add(int type, int target, float x, float y) {
+        commandSteps.add(deltas.size - 1);
+        commandTypes.add(type);
+        commandTargets.add(target);
+        commandXs.add(x);
+        commandYs.add(y);
+    }
+
+    /** Stores the checksum of {@code world} as it is at the end of the session. Only once it is no longer stepped. */
+    public void finish(GameWorld world) {
+        checksum = checksum(world);
+    }
+
+    /** Hashes every pet's position, state and stats and the fruit count, bit for bit. */
+    public static int checksum(GameWorld world) {
+        int hash = 1;
+        Array<Pet> pets = world.getPets();
+        for (int i = 0; i < pets.size; i++) {
+            Pet pet = pets.get(i);
+            hash = 31 * hash + Float.floatToIntBits(pet.getPosition().x);
+            hash = 31 * hash + Float.floatToIntBits(pet.getPosition().y);
+            hash = 31 * hash + pet.getState().ordinal();
+            hash = 31 * hash + Float.floatToIntBits(pet.getHunger());
+            hash = 31 * hash + Float.floatToIntBits(pet.getHappiness());
+            hash = 31 * hash + Float.floatToIntBits(pet.getEnergy());
+        }
+        return 31 * hash + world.getFruits().size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public float getWorldWidth() {
+        return worldWidth;
+    }
+
+    public float getWorldHeight() {
+        return worldHeight;
+    }
+
+    public int getSteps() {
+        return deltas.size;
+    }
+
+    public int getCommandCount() {
+        return commandTypes.size;
+    }
+
+    public int getChecksum() {
+        return checksum;
+    }
+
+    public void save(FileHandle file) {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeFloat(worldWidth);
+            out.writeFloat(worldHeight);
+            out.writeInt(checksum);
+            out.writeInt(deltas.size);
+            for (int i = 0; i < deltas.size; i++) {
+                out.writeFloat(deltas.get(i));
+            }
+            out.writeInt(commandTypes.size);
+            for (int i = 0; i < commandTypes.size; i++) {
+                out.writeInt(commandSteps.get(i));
+                out.writeByte(commandTypes.get(i));
+                out.writeInt(commandTargets.get(i));
+                out.writeFloat(commandXs.get(i));
+                out.writeFloat(commandYs.get(i));
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Could not save input recording: " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    public static InputRecording load(FileHandle file) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file.read()));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new GdxRuntimeException("Not an input recording: " + file);
+            InputRecording recording = new InputRecording(in.readLong(), in.readFloat(), in.readFloat());
+            recording.checksum = in.readInt();
+            int steps = in.readInt();
+            recording.deltas.ensureCapacity(steps);
+            for (int i = 0; i < steps; i++) {
+                recording.deltas.add(in.readFloat());
+            }
+            int commands = in.readInt();
+            for (int i = 0; i < commands; i++) {
+                recording.commandSteps.add(in.readInt());
+                recording.commandTypes.add(in.readByte());
+                recording.commandTargets.add(in.readInt());
+                recording.commandXs.add(in.readFloat());
+                recording.commandYs.add(in.readFloat());
+            }
+            return recording;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Could not load input recording: " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+}
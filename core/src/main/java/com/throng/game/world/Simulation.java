@@ -0,0 +1,375 @@
+package com.throng.game.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.throng.game.debug.PerfOverlay;
+import com.throng.game.debug.Telemetry;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link GameWorld} either inline, stepped by the render thread through {@link #update(float)}, or on its own
+ * thread at a fixed {@link #STEP} after {@link #start()}. Either way the two sides share only two things:
+ * <ul>
+ * <li>input goes in through a lock-free {@link CommandQueue}, applied at the start of the next step;</li>
+ * <li>the world comes out as a {@link WorldSnapshot}, published with one atomic swap after each step.</li>
+ * </ul>
+ * Snapshots rotate through three buffers: the one being written, the last published one and the one being
+ * drawn. That way the swap never waits on the renderer, and the renderer always draws a complete step. Once the
+ * thread is started, only the simulation thread may touch the world or its pets.
+ */
+public class Simulation {
+    public static final float STEP = 1 / 60f;
+    private static final long STEP_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    // Further behind than this (a debugger pause, a suspended process) and the lost time is dropped
+    private static final long MAX_LAG_NANOS = STEP_NANOS * 5;
+    private static final float AUTO_BEHAVIOR_TIMEOUT = 1.5f;
+    private static final float FEED_DROP_DISTANCE = 200f;
+
+    private static final int MOVE = 0;
+    private static final int DRAG = 1;
+    private static final int FEED = 2;
+    private static final int PLAY = 3;
+    private static final int SLEEP = 4;
+    private static final int RESIZE = 5;
+    private static final int CONTROL = 6;
+    private static final int VIEW_ORIGIN = 7;
+    private static final int VIEW_SIZE = 8;
+
+    private final GameWorld world;
+    private final TextureRegion fruitRegion;
+    private final CommandQueue commands = new CommandQueue();
+    private final CommandQueue.Handler handler = new CommandQueue.Handler() {
+        @Override
+        public void handle(int type, int target, float x, float y) {
+            apply(type, target, x, y);
+        }
+    };
+
+    private final AtomicReference<WorldSnapshot> published;
+    private WorldSnapshot back = new WorldSnapshot();
+    private WorldSnapshot front = new WorldSnapshot();
+
+    // Simulation side state, only touched in step()
+    private float worldWidth, worldHeight;
+    private int controlledPet = -1;
+    private float moveX, moveY;
+    private float timeSinceManualInput;
+    // Pets dragged lately and the time since; each one's own behaviour stays off until AUTO_BEHAVIOR_TIMEOUT
+    // passes, whoever dragged it
+    private final IntArray draggedPets = new IntArray();
+    private final FloatArray sinceDragged = new FloatArray();
+    private PerfOverlay perf;
+    private InputRecording recording;
+
+    // Render side, the view last sent
+    private final Rectangle sentView = new Rectangle();
+    private int sentScreenWidth = -1;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile boolean paused;
+
+    public Simulation(GameWorld world, TextureRegion fruitRegion, float worldWidth, float worldHeight) {
+        this.world = world;
+        this.fruitRegion = fruitRegion;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        WorldSnapshot first = new WorldSnapshot();
+        first.set(world);
+        first.fresh = true;
+        published = new AtomicReference<>(first);
+        acquireSnapshot();
+    }
+
+    /** Moves stepping to a dedicated thread. Set up the world before this, afterwards only commands reach it. */
+    public void start() {
+        if (thread != null)
+            return;
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "Simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isThreaded() {
+        return thread != null;
+    }
+
+    /** Steps the world by {@code delta} when inline. With a thread running this does nothing. */
+    public void update(float delta) {
+        if (thread == null)
+            step(delta);
+    }
+
+    /** Phase timings for the perf overlay. Inline only, the overlay is not thread safe. */
+    public void setPerfOverlay(PerfOverlay perf) {
+        this.perf = perf;
+    }
+
+    /**
+     * Records every command from the next step on, and reseeds {@link MathUtils#random} so the session can be
+     * replayed by an {@link InputPlayer}. Call before {@link #start()} and before the first step.
+     */
+    public void record(InputRecording recording) {
+        this.recording = recording;
+        MathUtils.random.setSeed(recording.seed);
+    }
+
+    private void runLoop() {
+        long next = System.nanoTime();
+        while (running) {
+            if (paused) {
+                LockSupport.park(this);
+                next = System.nanoTime();
+                continue;
+            }
+            try {
+                step(STEP);
+            } catch (final RuntimeException e) {
+                running = false;
+                // Rethrown on the render thread, so a broken simulation fails as loudly as it did inline
+                Gdx.app.postRunnable(new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new GdxRuntimeException("Simulation thread failed", e);
+                    }
+                });
+                return;
+            }
+            next += STEP_NANOS;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else if (wait < -MAX_LAG_NANOS) {
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    private void step(float delta) {
+        if (recording != null)
+            recording.beginStep(delta);
+        commands.drain(handler);
+        releaseDraggedPets(delta);
+        applyManualControl(delta);
+
+        Object tick = Telemetry.get().beginTick();
+        if (perf != null)
+            perf.begin(PerfOverlay.UPDATE);
+        world.updatePets(delta, worldWidth, worldHeight);
+        if (perf != null) {
+            perf.end(PerfOverlay.UPDATE);
+            perf.begin(PerfOverlay.COLLISION);
+        }
+        world.checkFruitCollision();
+        if (perf != null)
+            perf.end(PerfOverlay.COLLISION);
+        Telemetry.get().endTick(tick, world.getPets().size);
+
+        publish();
+    }
+
+    private void releaseDraggedPets(float delta) {
+        Array<Pet> pets = world.getPets();
+        for (int i = draggedPets.size - 1; i >= 0; i--) {
+            float since = sinceDragged.items[i] + delta;
+            if (since < AUTO_BEHAVIOR_TIMEOUT) {
+                sinceDragged.items[i] = since;
+                continue;
+            }
+            int pet = draggedPets.items[i];
+            if (pet < pets.size)
+                pets.get(pet).suppressAutoBehavior = false;
+            draggedPets.removeIndex(i);
+            sinceDragged.removeIndex(i);
+        }
+    }
+
+    // Held direction keys move the controlled pet; its own behaviour stays off for a moment after they are released
+    private void applyManualControl(float delta) {
+        if (controlledPet < 0 || controlledPet >= world.getPets().size)
+            return;
+        Pet pet = world.getPets().get(controlledPet);
+        boolean moving = moveX != 0 || moveY != 0;
+        if (moving) {
+            pet.manualMove(moveX, moveY, worldWidth, worldHeight, delta);
+            timeSinceManualInput = 0f;
+        } else {
+            timeSinceManualInput += delta;
+        }
+        pet.suppressAutoBehavior = !moving && timeSinceManualInput < AUTO_BEHAVIOR_TIMEOUT
+                || draggedPets.contains(controlledPet);
+    }
+
+    private void apply(int type, int target, float x, float y) {
+        if (recording != null)
+            recording.add(type, target, x, y);
+        // Commands without a target pet
+        switch (type) {
+            case MOVE:
+                moveX = x;
+                moveY = y;
+                return;
+            case RESIZE:
+                worldWidth = x;
+                worldHeight = y;
+                return;
+            case CONTROL:
+                controlledPet = target;
+                timeSinceManualInput = 0f;
+                return;
+            case VIEW_ORIGIN:
+                world.getLod().setViewOrigin(x, y);
+                return;
+            case VIEW_SIZE:
+                world.getLod().setViewSize(x, y, target);
+                return;
+        }
+
+        Array<Pet> pets = world.getPets();
+        if (target < 0 || target >= pets.size)
+            return;
+        Pet pet = pets.get(target);
+        switch (type) {
+            case DRAG:
+                pet.setPosition(x, y);
+                pet.suppressAutoBehavior = true;
+                int dragged = draggedPets.indexOf(target);
+                if (dragged >= 0) {
+                    sinceDragged.items[dragged] = 0f;
+                } else {
+                    draggedPets.add(target);
+                    sinceDragged.add(0f);
+                }
+                break;
+            case FEED:
+                float angle = MathUtils.random(MathUtils.PI2);
+                Vector2 dropPos = new Vector2(
+                        pet.getPosition().x + MathUtils.cos(angle) * FEED_DROP_DISTANCE,
+                        pet.getPosition().y + MathUtils.sin(angle) * FEED_DROP_DISTANCE);
+                Fruit fruit = new Fruit(dropPos, fruitRegion);
+                world.addFruit(fruit);
+                world.getEvents().publish(EventBus.FRUIT_SPAWNED, target, 0, fruit.getPosition().x,
+                        fruit.getPosition().y);
+                break;
+            case PLAY:
+                pet.play();
+                break;
+            case SLEEP:
+                pet.sleep();
+                break;
+        }
+    }
+
+    private void publish() {
+        back.set(world);
+        back.fresh = true;
+        back = published.getAndSet(back);
+    }
+
+    /**
+     * Render side: takes the newest published snapshot if there is one, otherwise keeps the current one. Call
+     * once at the start of a frame and draw the whole frame from the result.
+     */
+    public WorldSnapshot acquireSnapshot() {
+        if (published.get().fresh) {
+            front = published.getAndSet(front);
+            front.fresh = false;
+        }
+        return front;
+    }
+
+    /** The snapshot taken by the last {@link #acquireSnapshot()}. */
+    public WorldSnapshot getSnapshot() {
+        return front;
+    }
+
+    /** The pet that {@link #move} steers. */
+    public void setControlledPet(int pet) {
+        send(CONTROL, pet, 0, 0);
+    }
+
+    /** Holds a direction for the controlled pet until the next call, (0, 0) releases it. */
+    public void move(float dx, float dy) {
+        send(MOVE, 0, dx, dy);
+    }
+
+    /** This and the other pet commands return false when the command queue is full and the command was dropped. */
+    public boolean drag(int pet, float x, float y) {
+        return send(DRAG, pet, x, y);
+    }
+
+    public boolean feed(int pet) {
+        return send(FEED, pet, 0, 0);
+    }
+
+    public boolean play(int pet) {
+        return send(PLAY, pet, 0, 0);
+    }
+
+    public boolean sleep(int pet) {
+        return send(SLEEP, pet, 0, 0);
+    }
+
+    public void setWorldSize(float width, float height) {
+        send(RESIZE, 0, width, height);
+    }
+
+    /**
+     * The part of the world on screen, {@code screenWidth} pixels wide, which sets how much each pet is animated
+     * (see {@link CrowdLod}). Only sends what changed since the last call, so call it every frame.
+     */
+    public void setView(Rectangle view, int screenWidth) {
+        if (view.x != sentView.x || view.y != sentView.y)
+            send(VIEW_ORIGIN, 0, view.x, view.y);
+        if (view.width != sentView.width || view.height != sentView.height || screenWidth != sentScreenWidth)
+            send(VIEW_SIZE, screenWidth, view.width, view.height);
+        sentView.set(view);
+        sentScreenWidth = screenWidth;
+    }
+
+    // Also how an InputPlayer replays recorded commands
+    boolean send(int type, int target, float x, float y) {
+        if (commands.offer(type, target, x, y))
+            return true;
+        Gdx.app.error("Simulation", "Command queue full, dropped command " + type);
+        return false;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused && thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    /** Stops the thread, if any, and waits for the step in progress. Does not dispose the world. */
+    public void dispose() {
+        if (thread == null)
+            return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.throng.game.world;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.throng.game.entity.Fruit;
+import com.throng.game.entity.Pet;
+import com.throng.game.entity.PetSnapshot;
+
+/**
+ * The world as the renderer sees it for one frame, published by {@link Simulation}. Pets are in the same order
+ * as {@link GameWorld#getPets()}, so a pet's index identifies it across snapshots. Fruits never change after
+ * they are dropped, so they are shared rather than copied.
+ */
+public class WorldSnapshot {
+    private final Array<PetSnapshot> pets = new Array<>(true, 16, PetSnapshot.class);
+    private final Array<Fruit> fruits = new Array<>(true, 16, Fruit.class);
+    // Set by the simulation on publish, cleared by the renderer when it takes the snapshot
+    volatile boolean fresh;
+
+    void set(GameWorld world) {
+        Array<Pet> worldPets = world.getPets();
+        while (pets.size < worldPets.size) {
+            pets.add(new PetSnapshot());
+        }
+        pets.truncate(worldPets.size);
+        for (int i = 0; i < worldPets.size; i++) {
+            pets.get(i).set(worldPets.get(i));
+        }
+        Array<Fruit> worldFruits = world.getFruits();
+        fruits.clear();
+        // After clear(), addAll grows to the exact size, which would reallocate on every dropped fruit
+        if (fruits.items.length < worldFruits.size)
+            fruits.ensureCapacity(Math.max(worldFruits.size, fruits.items.length * 2));
+        fruits.addAll(worldFruits);
+    }
+
+    public Array<PetSnapshot> getPets() {
+        return pets;
+    }
+
+    public Array<Fruit> getFruits() {
+        return fruits;
+    }
+
+    /**
+     * Fills the two lists with the fruits and pets that overlap {@code view}. Pets are kept while their position
+     * is within {@code petMargin} of the view, which covers the sprite and the stat bars drawn above it.
+     */
+    public void cull(Rectangle view, float petMargin, Array<Fruit> visibleFruits, Array<PetSnapshot> visiblePets) {
+        visibleFruits.clear();
+        for (int i = 0; i < fruits.size; i++) {
+            Fruit fruit = fruits.get(i);
+            if (view.overlaps(fruit.getBounds()))
+                visibleFruits.add(fruit);
+        }
+
+        float left = view.x - petMargin;
+        float right = view.x + view.width + petMargin;
+        float bottom = view.y - petMargin;
+        float top = view.y + view.height + petMargin;
+        visiblePets.clear();
+        for (int i = 0; i < pets.size; i++) {
+            PetSnapshot pet = pets.get(i);
+            Vector2 position = pet.getPosition();
+            if (position.x >= left && position.x <= right && position.y >= bottom && position.y <= top)
+                visiblePets.add(pet);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# Measures desktop cold start for each launch mode: the plain runnable JAR, the JAR with the
+# AppCDS archive, and the Graal native image if one was built. Every run starts the game with
+# the startup probe (see StartupProbe), which prints the time from JVM start to the first
+# rendered frame and exits after showing the game screen.
+#
+# Build the modes first:
+#   ./gradlew lwjgl3:jar lwjgl3:cdsArchive
+#   ./gradlew lwjgl3:nativeCompile -PenableGraalNative=true   (optional, needs GraalVM)
+#
+# Usage: lwjgl3/scripts/cold-start-benchmark.sh [runs]
+# Output is one line per mode with the averages, e.g.
+#   mode=cds runs=5 first-frame-ms=812 process-ms=1490
+# The OS file cache is not dropped between runs, so these are warm-disk JVM cold starts.
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+JAR=$(ls "$ROOT"/lwjgl3/build/libs/*.jar 2>/dev/null | grep -v -e '-mac.jar' -e '-linux.jar' -e '-win.jar' | head -n 1 || true)
+JSA="$ROOT/lwjgl3/build/cds/throng.jsa"
+NATIVE="$ROOT/lwjgl3/build/native/nativeCompile/Throng Game"
+
+JAVA_OPTS=(-Dthrong.startupProbe=true)
+if [[ "$(uname)" == "Darwin" ]]; then
+  JAVA_OPTS+=(-XstartOnFirstThread)
+fi
+
+now_ms() {
+  python3 -c 'import time; print(int(time.time() * 1000))'
+}
+
+measure() {
+  local mode=$1
+  shift
+  local frame_total=0 process_total=0
+  for ((i = 0; i < RUNS; i++)); do
+    local start end output frame
+    start=$(now_ms)
+    output=$(cd "$ROOT/assets" && "$@" 2>&1)
+    end=$(now_ms)
+    frame=$(printf '%s\n' "$output" | sed -n 's/^first-frame-ms=//p' | tail -n 1)
+    if [[ -z "$frame" ]]; then
+      echo "mode=$mode failed, output was:" >&2
+      printf '%s\n' "$output" >&2
+      return 1
+    fi
+    frame_total=$((frame_total + frame))
+    process_total=$((process_total + end - start))
+  done
+  echo "mode=$mode runs=$RUNS first-frame-ms=$((frame_total / RUNS)) process-ms=$((process_total / RUNS))"
+}
+
+if [[ -z "$JAR" ]]; then
+  echo "No runnable JAR in lwjgl3/build/libs, run ./gradlew lwjgl3:jar first." >&2
+  exit 1
+fi
+
+measure jar java "${JAVA_OPTS[@]}" -jar "$JAR"
+
+if [[ -f "$JSA" ]]; then
+  measure cds java "${JAVA_OPTS[@]}" -XX:SharedArchiveFile="$JSA" -jar "$JAR"
+else
+  echo "mode=cds skipped, run ./gradlew lwjgl3:cdsArchive first"
+fi
+
+if [[ -x "$NATIVE" ]]; then
+  measure native "$NATIVE" -Dthrong.startupProbe=true
+else
+  echo "mode=native skipped, build it with ./gradlew lwjgl3:nativeCompile -PenableGraalNative=true"
+fi
@@ -0,0 +1,17 @@
+package com.throng.game.lwjgl3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("throng.AssetLoad")
+@Label("Asset Load")
+@Category({ "Throng", "Assets" })
+class AssetLoadEvent extends Event {
+    @Label("Asset")
+    String asset;
+
+    @Label("Type")
+    String type;
+}
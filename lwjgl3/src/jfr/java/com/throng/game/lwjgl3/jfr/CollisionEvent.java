@@ -0,0 +1,20 @@
+package com.throng.game.lwjgl3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("throng.Collision")
+@Label("Fruit Collision")
+@Category({ "Throng", "Simulation" })
+class CollisionEvent extends Event {
+    @Label("Pets")
+    int petCount;
+
+    @Label("Fruits")
+    int fruitCount;
+
+    @Label("Fruits Eaten")
+    int eaten;
+}
@@ -0,0 +1,14 @@
+package com.throng.game.lwjgl3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("throng.Frame")
+@Label("Frame")
+@Category({ "Throng", "Render" })
+class FrameEvent extends Event {
+    @Label("Screen")
+    String screen;
+}
@@ -0,0 +1,130 @@
+package com.throng.game.lwjgl3.jfr;
+
+import com.badlogic.gdx.Screen;
+import com.throng.game.debug.Telemetry;
+import jdk.jfr.EventType;
+
+/**
+ * Emits the game's {@link Telemetry} hooks as Java Flight Recorder events. Each hook checks whether its event
+ * type is enabled in any running recording first, so nothing is allocated when it is not.
+ */
+public class JfrTelemetry extends Telemetry {
+    private static final EventType FRAME = EventType.getEventType(FrameEvent.class);
+    private static final EventType TICK = EventType.getEventType(TickEvent.class);
+    private static final EventType COLLISION = EventType.getEventType(CollisionEvent.class);
+    private static final EventType ASSET_LOAD = EventType.getEventType(AssetLoadEvent.class);
+    private static final EventType SCREEN_TRANSITION = EventType.getEventType(ScreenTransitionEvent.class);
+
+    @Override
+    public Object beginFrame() {
+        if (!FRAME.isEnabled())
+            return null;
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endFrame(Object frame, Screen screen) {
+        if (frame == null)
+            return;
+        FrameEvent event = (FrameEvent) frame;
+        event.end();
+        if (event.shouldCommit()) {
+            event.screen = name(screen);
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginTick() {
+        if (!TICK.isEnabled())
+            return null;
+        TickEvent event = new TickEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endTick(Object tick, int petCount) {
+        if (tick == null)
+            return;
+        TickEvent event = (TickEvent) tick;
+        event.end();
+        if (event.shouldCommit()) {
+            event.petCount = petCount;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginCollision() {
+        if (!COLLISION.isEnabled())
+            return null;
+        CollisionEvent event = new CollisionEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endCollision(Object collision, int petCount, int fruitCount, int eaten) {
+        if (collision == null)
+            return;
+        CollisionEvent event = (CollisionEvent) collision;
+        event.end();
+        if (event.shouldCommit()) {
+            event.petCount = petCount;
+            event.fruitCount = fruitCount;
+            event.eaten = eaten;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginAssetLoad() {
+        if (!ASSET_LOAD.isEnabled())
+            return null;
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endAssetLoad(Object load, String asset, String type) {
+        if (load == null)
+            return;
+        AssetLoadEvent event = (AssetLoadEvent) load;
+        event.end();
+        if (event.shouldCommit()) {
+            event.asset = asset;
+            event.type = type;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginScreenTransition() {
+        if (!SCREEN_TRANSITION.isEnabled())
+            return null;
+        ScreenTransitionEvent event = new ScreenTransitionEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void endScreenTransition(Object transition, Screen from, Screen to) {
+        if (transition == null)
+            return;
+        ScreenTransitionEvent event = (ScreenTransitionEvent) transition;
+        event.end();
+        if (event.shouldCommit()) {
+            event.from = name(from);
+            event.to = name(to);
+            event.commit();
+        }
+    }
+
+    private static String name(Screen screen) {
+        return screen == null ? null : screen.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,17 @@
+package com.throng.game.lwjgl3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("throng.ScreenTransition")
+@Label("Screen Transition")
+@Category({ "Throng", "Render" })
+class ScreenTransitionEvent extends Event {
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+}
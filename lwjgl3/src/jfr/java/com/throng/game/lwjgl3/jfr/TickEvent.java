@@ -0,0 +1,14 @@
+package com.throng.game.lwjgl3.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("throng.Tick")
+@Label("Simulation Tick")
+@Category({ "Throng", "Simulation" })
+class TickEvent extends Event {
+    @Label("Pets")
+    int petCount;
+}
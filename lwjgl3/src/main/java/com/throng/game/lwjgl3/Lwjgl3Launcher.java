@@ -2,18 +2,47 @@ package com.throng.game.lwjgl3;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.throng.game.ThrongGame;
+import com.throng.game.debug.Telemetry;
 
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired())
             return; // This handles macOS support and helps on Windows.
+        installTelemetry();
         createApplication();
     }
 
+    // Flight Recorder events live in the jfr source set, which targets Java 11; on a JVM without JFR the
+    // game keeps the no-op telemetry.
+    private static void installTelemetry() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class<?> telemetry = Class.forName("com.throng.game.lwjgl3.jfr.JfrTelemetry");
+            Telemetry.install((Telemetry) telemetry.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError ignored) {
+        }
+    }
+
     private static Lwjgl3Application createApplication() {
-        return new Lwjgl3Application(new ThrongGame(), getDefaultConfiguration());
+        ThrongGame game = Boolean.getBoolean(StartupProbe.PROPERTY) ? new StartupProbe() : new ThrongGame();
+        // -Dthrong.adaptiveRendering=false keeps rendering at the refresh rate, for comparisons
+        game.renderPacer.setEnabled(!"false".equals(System.getProperty("throng.adaptiveRendering")));
+        // -Dthrong.dynamicResolution=false keeps the world at native resolution however slow frames get
+        game.dynamicResolution.setEnabled(!"false".equals(System.getProperty("throng.dynamicResolution")));
+        // -Dthrong.simulationThread=true runs the simulation beside rendering, on another core
+        game.simulationThread = Boolean.getBoolean("throng.simulationThread");
+        // -Dthrong.recordInput=session.rec saves the session's input for benchmarks:replay
+        game.inputRecordingPath = System.getProperty("throng.recordInput");
+        // -Dthrong.textureBudgetMB=512 sets the texture memory past which hidden screens are dropped
+        long textureBudgetMB = Long.getLong("throng.textureBudgetMB", 0L);
+        if (textureBudgetMB > 0)
+            game.textureBudgetBytes = textureBudgetMB * 1024 * 1024;
+        if (Boolean.getBoolean(UtilizationLog.PROPERTY))
+            new UtilizationLog(game).start();
+        return new Lwjgl3Application(game, getDefaultConfiguration());
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {
@@ -36,6 +65,15 @@ public class Lwjgl3Launcher {
         //// You may also need to configure GPU drivers to fully disable Vsync; this can
         //// cause screen tearing.
 
+        // -Dthrong.gl30=true asks for a GL 3.2 core context, which draws the pet crowd instanced. Core profiles
+        // drop GLSL 1.00, so the GLES2 style shaders get the equivalent 1.40 keywords prepended.
+        if (Boolean.getBoolean("throng.gl30")) {
+            configuration.setOpenGLEmulation(Lwjgl3ApplicationConfiguration.GLEmulation.GL30, 3, 2);
+            ShaderProgram.prependVertexCode = "#version 140\n#define varying out\n#define attribute in\n";
+            ShaderProgram.prependFragmentCode = "#version 140\n#define varying in\n#define texture2D texture\n"
+                    + "#define gl_FragColor fragColor\nout vec4 fragColor;\n";
+        }
+
         configuration.setWindowedMode(1280, 640);
         //// You can change these files; they are in lwjgl3/src/main/resources/ .
         //// They can also be loaded from the root of assets/ .
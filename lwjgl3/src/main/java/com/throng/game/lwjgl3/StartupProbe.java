@@ -0,0 +1,32 @@
+package com.throng.game.lwjgl3;
+
+import com.badlogic.gdx.Gdx;
+import com.throng.game.GameScreen;
+import com.throng.game.ThrongGame;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures cold start: prints the time from JVM start to the first rendered frame,
+ * opens the game screen so its classes are loaded as well, then exits once it has drawn. Used by the
+ * {@code cdsArchive} training run and by {@code scripts/cold-start-benchmark.sh}.
+ */
+public class StartupProbe extends ThrongGame {
+    static final String PROPERTY = "throng.startupProbe";
+
+    private int frames;
+    private int gameFrames;
+
+    @Override
+    public void render() {
+        super.render();
+        frames++;
+        if (frames == 1) {
+            long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+            System.out.println("first-frame-ms=" + (System.currentTimeMillis() - jvmStart));
+            screens.showGame();
+        } else if (getScreen() instanceof GameScreen && ++gameFrames == 2) {
+            Gdx.app.exit();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.throng.game.lwjgl3;
+
+import com.badlogic.gdx.Gdx;
+import com.throng.game.ThrongGame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Locale;
+
+/**
+ * Logs the process CPU use and the frames actually rendered every few seconds, with whether the render pacer
+ * had the game idle. Run once with {@code -Dthrong.adaptiveRendering=false} and once without to compare. GPU
+ * time is not exposed portably; it scales with the rendered frames, so their drop is the GPU side of the saving.
+ */
+class UtilizationLog extends Thread {
+    static final String PROPERTY = "throng.utilization";
+    private static final long INTERVAL_MILLIS = 5000;
+
+    private final ThrongGame game;
+
+    UtilizationLog(ThrongGame game) {
+        super("utilization-log");
+        this.game = game;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (!(os instanceof com.sun.management.OperatingSystemMXBean)) {
+            System.err.println("[utilization] process CPU time is not available on this JVM");
+            return;
+        }
+        com.sun.management.OperatingSystemMXBean sunOs = (com.sun.management.OperatingSystemMXBean) os;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        long lastCpu = sunOs.getProcessCpuTime();
+        long lastWall = System.nanoTime();
+        long lastFrame = 0;
+        while (true) {
+            try {
+                Thread.sleep(INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (Gdx.graphics == null)
+                continue;
+            long cpu = sunOs.getProcessCpuTime();
+            long wall = System.nanoTime();
+            long frame = Gdx.graphics.getFrameId();
+            double seconds = (wall - lastWall) / 1e9;
+            System.out.println(String.format(Locale.ROOT,
+                    "[utilization] cpu %.1f%% of one core (%.1f%% of %d), rendered %.1f fps, %s",
+                    100.0 * (cpu - lastCpu) / (wall - lastWall),
+                    100.0 * (cpu - lastCpu) / (wall - lastWall) / cores, cores,
+                    (frame - lastFrame) / seconds, game.renderPacer.isIdle() ? "idle" : "continuous"));
+            lastCpu = cpu;
+            lastWall = wall;
+            lastFrame = frame;
+        }
+    }
+}
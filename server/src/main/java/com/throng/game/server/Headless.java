@@ -0,0 +1,75 @@
+package com.throng.game.server;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.graphics.GL20;
+
+/**
+ * Boots the headless backend once per JVM, with {@link HeadlessGL20} standing in for GL. The graphics are
+ * replaced as well so that {@code Gdx.graphics.getGL20()} works, which {@code GLProfiler} needs, and so that the
+ * window reports the desktop size for viewports that unproject input.
+ */
+public final class Headless {
+    public static final int WIDTH = 1280;
+    public static final int HEIGHT = 720;
+
+    private static boolean started;
+
+    private Headless() {
+    }
+
+    public static synchronized void start() {
+        if (started)
+            return;
+
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        // Callers drive the game code themselves, the backend's own loop never renders
+        configuration.updatesPerSecond = -1;
+        new HeadlessApplication(new ApplicationAdapter() {
+        }, configuration);
+        Gdx.graphics = new Graphics(new HeadlessGL20());
+        Gdx.gl = Gdx.gl20 = Gdx.graphics.getGL20();
+        started = true;
+    }
+
+    private static class Graphics extends MockGraphics {
+        private GL20 gl20;
+
+        Graphics(GL20 gl20) {
+            this.gl20 = gl20;
+        }
+
+        @Override
+        public GL20 getGL20() {
+            return gl20;
+        }
+
+        @Override
+        public void setGL20(GL20 gl20) {
+            this.gl20 = gl20;
+        }
+
+        @Override
+        public int getWidth() {
+            return WIDTH;
+        }
+
+        @Override
+        public int getHeight() {
+            return HEIGHT;
+        }
+
+        @Override
+        public int getBackBufferWidth() {
+            return WIDTH;
+        }
+
+        @Override
+        public int getBackBufferHeight() {
+            return HEIGHT;
+        }
+    }
+}
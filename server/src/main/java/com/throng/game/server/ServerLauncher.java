@@ -0,0 +1,55 @@
+package com.throng.game.server;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.throng.game.animation.AnimationManager;
+import com.throng.game.entity.Pet;
+import com.throng.game.net.Protocol;
+import com.throng.game.net.QuantizedWorld;
+import com.throng.game.world.GameWorld;
+
+import java.io.IOException;
+
+/**
+ * Starts a {@link WorldServer} with a crowd of pets on the headless backend.
+ * <p>
+ * Usage: {@code ./gradlew server:run --args="--port 7777 --pets 100"}
+ */
+public class ServerLauncher {
+    private static final float WORLD_WIDTH = Headless.WIDTH;
+    private static final float WORLD_HEIGHT = Headless.HEIGHT;
+
+    public static void main(String[] args) throws IOException {
+        int port = Protocol.DEFAULT_PORT;
+        int pets = 100;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--pets":
+                    pets = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        // Past this a snapshot may not fit the datagrams a tick can send
+        if (pets > QuantizedWorld.MAX_PETS)
+            throw new IllegalArgumentException("At most " + QuantizedWorld.MAX_PETS + " pets, not " + pets);
+
+        Headless.start();
+        // Pets pick their frames and hit masks from the animations, so the server loads them like the game does
+        AnimationManager animations = new AnimationManager();
+        GameWorld world = new GameWorld();
+        for (int i = 0; i < pets; i++) {
+            world.addPet(new Pet(new Vector2(MathUtils.random(WORLD_WIDTH), MathUtils.random(WORLD_HEIGHT)),
+                    animations));
+        }
+
+        WorldServer server = new WorldServer(world, WORLD_WIDTH, WORLD_HEIGHT, port);
+        Gdx.app.log("WorldServer", "Serving " + pets + " pets on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,307 @@
+package com.throng.game.server;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.throng.game.net.Protocol;
+import com.throng.game.net.QuantizedWorld;
+import com.throng.game.world.GameWorld;
+import com.throng.game.world.Simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link GameWorld} authoritatively for any number of {@link com.throng.game.net.NetworkClient}s over UDP.
+ * Each {@link #tick()} applies the commands that arrived since the last one through an inline {@link Simulation},
+ * so they behave exactly as in the game, and steps the world by {@link Simulation#STEP}. Every
+ * {@link Protocol#TICKS_PER_SNAPSHOT} ticks the world is quantized and sent to each client as a delta against the
+ * newest snapshot that client acked, or in full when that one is no longer in the history. Clients that ack the
+ * same tick get the same bytes, encoded once.
+ * <p>
+ * A snapshot is split over datagrams of at most {@link Protocol#MAX_SEND} bytes, a few dozen pets each in full, up
+ * to {@link QuantizedWorld#MAX_PETS} pets.
+ */
+public class WorldServer implements Closeable {
+    private static final int HISTORY = 32;
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / Protocol.TICK_RATE;
+    private static final long CLIENT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // Offset of the acked command number in a snapshot packet, patched per client
+    private static final int ACK_OFFSET = 1;
+    private static final int PART_OFFSET = ACK_OFFSET + 4;
+
+    private static final class Client {
+        final SocketAddress address;
+        int ackedTick = Protocol.NO_TICK;
+        int commandSeq;
+        long lastHeard;
+
+        Client(SocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    private final GameWorld world;
+    private final float worldWidth, worldHeight;
+    private final Simulation simulation;
+    private final DatagramChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(Protocol.MAX_PACKET);
+    // The datagrams of the snapshot last encoded, grown as the world does
+    private final Array<ByteBuffer> parts = new Array<>();
+    private int partCount;
+
+    private final HashMap<SocketAddress, Client> clientsByAddress = new HashMap<>();
+    private final Array<Client> clients = new Array<>();
+    private final QuantizedWorld[] history = new QuantizedWorld[HISTORY];
+    private int tick;
+    private boolean overflowLogged;
+    private volatile boolean running;
+
+    private long bytesSent;
+    private long snapshotsSent;
+
+    /** Binds to {@code port} on all interfaces, 0 picks a free port. */
+    public WorldServer(GameWorld world, float worldWidth, float worldHeight, int port) throws IOException {
+        this.world = world;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        // Fruits are only positions on the server, they are never drawn
+        simulation = new Simulation(world, new TextureRegion(), worldWidth, worldHeight);
+        for (int i = 0; i < HISTORY; i++) {
+            history[i] = new QuantizedWorld();
+        }
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, Protocol.SOCKET_BUFFER);
+        channel.bind(new InetSocketAddress(port));
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    /** Ticks at {@link Protocol#TICK_RATE} on the calling thread until {@link #close()}. */
+    public void run() throws IOException {
+        running = true;
+        long next = System.nanoTime();
+        while (running) {
+            try {
+                tick();
+            } catch (ClosedChannelException e) {
+                if (running)
+                    throw e;
+                return;
+            }
+            next += TICK_NANOS;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            } else if (wait < -TICK_NANOS * 5) {
+                // Too far behind to catch up, drop the lost time like the simulation thread does
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    /** Applies received input, steps the world once and sends snapshots when one is due. */
+    public void tick() throws IOException {
+        long now = System.nanoTime();
+        receive(now);
+        simulation.update(Simulation.STEP);
+        tick++;
+
+        for (int i = clients.size - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (now - client.lastHeard > CLIENT_TIMEOUT_NANOS)
+                remove(client);
+        }
+        if (tick % Protocol.TICKS_PER_SNAPSHOT == 0)
+            broadcast();
+    }
+
+    private void receive(long now) throws IOException {
+        while (true) {
+            in.clear();
+            SocketAddress address = channel.receive(in);
+            if (address == null)
+                return;
+            in.flip();
+            if (in.remaining() < 1)
+                continue;
+            byte type = in.get();
+            Client client = clientsByAddress.get(address);
+            if (type == Protocol.BYE) {
+                if (client != null)
+                    remove(client);
+                continue;
+            }
+            if (client == null) {
+                client = new Client(address);
+                clientsByAddress.put(address, client);
+                clients.add(client);
+                Gdx.app.log("WorldServer", "Client joined from " + address);
+            }
+            client.lastHeard = now;
+            if (type == Protocol.INPUT) {
+                try {
+                    readInput(client);
+                } catch (BufferUnderflowException e) {
+                    // Truncated packet, whatever was read before the end has been applied
+                }
+            }
+        }
+    }
+
+    private void readInput(Client client) {
+        int acked = in.getInt();
+        if (acked > client.ackedTick && acked <= tick)
+            client.ackedTick = acked;
+        int count = Protocol.getVarInt(in);
+        for (int i = 0; i < count; i++) {
+            int seq = in.getInt();
+            byte type = in.get();
+            int pet = Protocol.getVarInt(in);
+            float x = 0, y = 0;
+            if (type == Protocol.DRAG) {
+                x = in.getFloat();
+                y = in.getFloat();
+            }
+            // Repeats of commands that were already applied
+            if (seq - client.commandSeq <= 0)
+                continue;
+            // Refused ones are not acked, so the client sends them and everything after them again
+            if (!apply(type, pet, x, y))
+                return;
+            client.commandSeq = seq;
+        }
+    }
+
+    // False when the simulation's queue is full; a command that can never be applied counts as applied
+    private boolean apply(byte type, int pet, float x, float y) {
+        switch (type) {
+            case Protocol.FEED:
+                return simulation.feed(pet);
+            case Protocol.PLAY:
+                return simulation.play(pet);
+            case Protocol.SLEEP:
+                return simulation.sleep(pet);
+            case Protocol.DRAG:
+                // Straight from the network, so kept to the world before every client gets it back
+                if (Float.isNaN(x) || Float.isNaN(y))
+                    return true;
+                return simulation.drag(pet, MathUtils.clamp(x, 0f, worldWidth), MathUtils.clamp(y, 0f, worldHeight));
+            default:
+                return true;
+        }
+    }
+
+    private void remove(Client client) {
+        clientsByAddress.remove(client.address);
+        clients.removeValue(client, true);
+        Gdx.app.log("WorldServer", "Client left from " + client.address);
+    }
+
+    private void broadcast() throws IOException {
+        if (clients.size == 0)
+            return;
+        QuantizedWorld current = history[(tick / Protocol.TICKS_PER_SNAPSHOT) % HISTORY];
+        current.capture(world, tick);
+
+        int encodedBaseline = Integer.MIN_VALUE;
+        for (int i = 0; i < clients.size; i++) {
+            Client client = clients.get(i);
+            QuantizedWorld baseline = find(client.ackedTick);
+            int baselineTick = baseline != null ? baseline.getTick() : Protocol.NO_TICK;
+            if (baselineTick != encodedBaseline) {
+                if (!encode(current, baseline)) {
+                    if (!overflowLogged)
+                        Gdx.app.error("WorldServer", "Snapshot of " + current.getPetCount() + " pets and "
+                                + current.getFruitCount() + " fruits needs more than " + QuantizedWorld.MAX_PARTS
+                                + " datagrams, not sending");
+                    overflowLogged = true;
+                    return;
+                }
+                encodedBaseline = baselineTick;
+            }
+            for (int p = 0; p < partCount; p++) {
+                ByteBuffer part = parts.get(p);
+                part.putInt(ACK_OFFSET, client.commandSeq);
+                part.rewind();
+                bytesSent += channel.send(part, client.address);
+            }
+            snapshotsSent++;
+        }
+    }
+
+    // Splits the snapshot over as many datagrams as it takes, false when that is more than MAX_PARTS
+    private boolean encode(QuantizedWorld current, QuantizedWorld baseline) {
+        partCount = 0;
+        boolean done = false;
+        while (!done) {
+            if (partCount == QuantizedWorld.MAX_PARTS)
+                return false;
+            if (partCount == parts.size)
+                parts.add(ByteBuffer.allocateDirect(Protocol.MAX_SEND));
+            ByteBuffer part = parts.get(partCount);
+            part.clear();
+            part.put(Protocol.SNAPSHOT);
+            part.putInt(0);
+            done = current.writePart(part, baseline, partCount);
+            partCount++;
+        }
+        for (int p = 0; p < partCount; p++) {
+            ByteBuffer part = parts.get(p);
+            QuantizedWorld.setPartCount(part, PART_OFFSET, partCount);
+            part.flip();
+        }
+        overflowLogged = false;
+        return true;
+    }
+
+    // The held snapshot for an acked tick, if it is still in the history
+    private QuantizedWorld find(int tick) {
+        if (tick == Protocol.NO_TICK || tick % Protocol.TICKS_PER_SNAPSHOT != 0)
+            return null;
+        QuantizedWorld world = history[(tick / Protocol.TICKS_PER_SNAPSHOT) % HISTORY];
+        return world.getTick() == tick ? world : null;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /** The snapshot the server sent for {@code tick}, while it is still in the history. */
+    public QuantizedWorld getSnapshot(int tick) {
+        return find(tick);
+    }
+
+    public int getClientCount() {
+        return clients.size;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    /** Stops {@link #run()} and closes the socket. Does not dispose the world. */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        channel.close();
+    }
+}